@@ -1,5 +1,6 @@
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -14,6 +15,17 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Room exports every schema version to app/schemas, used by the migration and query plan tests
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
+    }
+
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
     }
 
     buildTypes {
@@ -25,21 +37,36 @@ android {
             )
         }
     }
+    testOptions {
+        // Unit tests run against the stub android.jar: calls such as Log.d return defaults instead of throwing
+        unitTests.isReturnDefaultValues = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
     }
 }
 
+baselineProfile {
+    // Profiles are generated on demand with :app:generateBaselineProfile and committed under src/release/generated
+    automaticGenerationDuringBuild = false
+    saveInSrc = true
+}
+
 dependencies {
 
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.profileinstaller)
+    baselineProfile(project(":baselineprofile"))
     testImplementation(libs.junit)
+    testImplementation("org.xerial:sqlite-jdbc:3.45.1.0")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation("com.squareup.okhttp3:mockwebserver:3.14.9")
+    androidTestImplementation("androidx.room:room-testing:2.5.0")
 
     // Retrofit
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
@@ -49,10 +76,25 @@ dependencies {
     implementation ("androidx.room:room-runtime:2.5.0")
     annotationProcessor ("androidx.room:room-compiler:2.5.0")
 
+    // LruCache of the user cache, plain Java so the cache also runs in unit tests
+    implementation("androidx.collection:collection:1.2.0")
+
     // recyclerview
     implementation("androidx.recyclerview:recyclerview:1.3.2")
 
+    // Paging 3 - PagingSource over Room and a RemoteMediator over the API
+    implementation("androidx.paging:paging-runtime:3.2.1")
+    implementation("androidx.paging:paging-guava:3.2.1")
+    implementation("androidx.room:room-paging:2.5.0")
+    implementation("com.google.guava:guava:31.1-android")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:2.6.1")
+    implementation("androidx.lifecycle:lifecycle-livedata:2.6.1")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-savedstate:2.6.1")
+
     // update 'MyAdapter' to load Images using glide
     implementation ("com.github.bumptech.glide:glide:4.12.0")
     annotationProcessor ("com.github.bumptech.glide:compiler:4.12.0")
+    implementation ("com.github.bumptech.glide:recyclerview-integration:4.12.0") {
+        isTransitive = false    // Only the preloader, Glide and RecyclerView are already declared above
+    }
 }
\ No newline at end of file
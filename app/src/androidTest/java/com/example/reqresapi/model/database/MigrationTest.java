@@ -0,0 +1,91 @@
+package com.example.reqresapi.model.database;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.reqresapi.model.models.User;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of the migration chain against the schemas exported under app/schemas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(InstrumentationRegistry.getInstrumentation(),
+            AppDatabase.class);
+
+    @Test
+    public void migrateFromVersion1KeepsUsers() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name, avatar) "
+                + "VALUES (2, 'janet.weaver@reqres.in', 'Janet', 'Weaver', NULL)");
+        db.close();
+
+        // Validates every table, index and trigger against the latest exported schema
+        db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATIONS);
+
+        // The full-text index is built for users that existed before version 4
+        try (Cursor cursor = db.query("SELECT rowid FROM users_fts WHERE users_fts MATCH 'wea*'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(2, cursor.getInt(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrateFromVersion6MarksPendingChangesAsLocalEdits() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 6);
+        db.execSQL("INSERT INTO outbox (user_id, operation, first_name, last_name, email, avatar, updated_at) "
+                + "VALUES (2, 'UPDATE', 'Jane', 'Weaver', 'janet.weaver@reqres.in', NULL, 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATIONS);
+
+        // A change that is still waiting to be pushed must not be overwritten by the next sync either
+        try (Cursor cursor = db.query("SELECT user_id, edited_at FROM local_edits")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(2, cursor.getInt(0));
+            assertEquals(1000, cursor.getLong(1));
+            assertFalse(cursor.moveToNext());
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrateEveryVersionToLatest() throws IOException {
+        for (int version = 1; version < 7; version++) {
+            String name = TEST_DB + "-" + version;
+            helper.createDatabase(name, version).close();
+            helper.runMigrationsAndValidate(name, 7, true, AppDatabase.MIGRATIONS).close();
+        }
+    }
+
+    @Test
+    public void migratedDatabaseOpensWithRoom() throws IOException {
+        helper.createDatabase(TEST_DB, 1).close();
+
+        AppDatabase appDatabase = Room.databaseBuilder(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                        AppDatabase.class, TEST_DB)
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .build();
+        appDatabase.userDao().insertUser(new User(7, "michael.lawson@reqres.in", "Michael", "Lawson", null));
+        assertEquals(7, appDatabase.userDao().getUserByEmail("michael.lawson@reqres.in").getId());
+        appDatabase.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.reqresapi.model.database;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of how {@link UserDao#insertUserWithNextId} allocates local user IDs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserDaoTest {
+
+    private AppDatabase db;
+    private UserDao userDao;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                AppDatabase.class).build();
+        userDao = db.userDao();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void allocatesConsecutiveIdsFromLocalIdBase() {
+        assertEquals(IdSequence.LOCAL_ID_BASE, userDao.insertUserWithNextId(newUser("a@example.com")));
+        assertEquals(IdSequence.LOCAL_ID_BASE + 1, userDao.insertUserWithNextId(newUser("b@example.com")));
+    }
+
+    @Test
+    public void skipsIdTakenBeforeFirstAllocation() {
+        userDao.insertUser(new User(IdSequence.LOCAL_ID_BASE, "api@example.com", "Api", "User", null));
+
+        int id = userDao.insertUserWithNextId(newUser("a@example.com"));
+
+        assertEquals(IdSequence.LOCAL_ID_BASE + 1, id);
+        assertEquals("Api", userDao.getUserById(IdSequence.LOCAL_ID_BASE).getFirst_name());
+    }
+
+    @Test
+    public void skipsIdTakenAfterSequenceAdvanced() {
+        int first = userDao.insertUserWithNextId(newUser("a@example.com"));
+        // A user stored at the next ID of the sequence, for example by a sync, must not block every later add
+        userDao.insertUser(new User(first + 1, "api@example.com", "Api", "User", null));
+
+        int second = userDao.insertUserWithNextId(newUser("b@example.com"));
+        int third = userDao.insertUserWithNextId(newUser("c@example.com"));
+
+        assertEquals(first + 2, second);
+        assertEquals(first + 3, third);
+        assertEquals("Api", userDao.getUserById(first + 1).getFirst_name());
+        assertEquals("b@example.com", userDao.getUserById(second).getEmail());
+    }
+
+    @Test
+    public void idsOfDeletedUsersAreNotReused() {
+        int first = userDao.insertUserWithNextId(newUser("a@example.com"));
+        userDao.deleteUser(first);
+
+        assertEquals(first + 1, userDao.insertUserWithNextId(newUser("b@example.com")));
+    }
+
+    private static User newUser(String email) {
+        return new User(0, email, "Local", "User", null);
+    }
+}
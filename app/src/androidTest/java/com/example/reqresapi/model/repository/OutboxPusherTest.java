@@ -0,0 +1,121 @@
+package com.example.reqresapi.model.repository;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.PendingChange;
+import com.example.reqresapi.model.network.ApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of the outbox push against a MockWebServer stand-in for the API.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OutboxPusherTest {
+
+    private MockWebServer server;
+    private AppDatabase db;
+    private OutboxPusher outboxPusher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        outboxPusher = new OutboxPusher(db, apiService, DbDispatcher.getInstance());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void pushesPendingChangesAndClearsOutbox() throws Exception {
+        db.outboxDao().upsertPendingChange(new PendingChange(2, PendingChange.UPDATE, "Janet", "Weaver",
+                "janet.weaver@reqres.in", null, 1L));
+        db.outboxDao().upsertPendingChange(new PendingChange(3, PendingChange.DELETE, null, null, null, null, 2L));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        server.enqueue(new MockResponse().setResponseCode(204));
+
+        assertEquals(Integer.valueOf(2), push());
+
+        RecordedRequest update = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("PUT", update.getMethod());
+        assertEquals("/api/users/2", update.getPath());
+        assertTrue(update.getBody().readUtf8().contains("\"first_name\":\"Janet\""));
+
+        RecordedRequest delete = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("DELETE", delete.getMethod());
+        assertEquals("/api/users/3", delete.getPath());
+
+        assertTrue(db.outboxDao().getPendingChanges().isEmpty());
+    }
+
+    @Test
+    public void keepsChangeWhenServerFails() throws Exception {
+        db.outboxDao().upsertPendingChange(new PendingChange(2, PendingChange.UPDATE, "Janet", "Weaver",
+                "janet.weaver@reqres.in", null, 1L));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        assertNull(push());
+
+        List<PendingChange> pending = db.outboxDao().getPendingChanges();
+        assertEquals(1, pending.size());
+        assertEquals(2, pending.get(0).getUserId());
+    }
+
+    /**
+     * Runs one push and waits for it to finish.
+     *
+     * @return The number of pushed changes, or null if the push failed.
+     */
+    private Integer push() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Integer> pushed = new AtomicReference<>();
+        outboxPusher.pushPending(new UserRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+                pushed.set(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return pushed.get();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.reqresapi.model.repository;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.network.ApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of revalidating stored users against a page from the API after local changes were pushed.
+ * The API does not persist changes, so the page still carries the server's copy of the edited users.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserRevalidationTest {
+
+    private static final User JANET = new User(2, "janet.weaver@reqres.in", "Janet", "Weaver",
+            "https://reqres.in/img/faces/2-image.jpg");
+    private static final User EMMA = new User(3, "emma.wong@reqres.in", "Emma", "Wong",
+            "https://reqres.in/img/faces/3-image.jpg");
+    private static final User EVE = new User(4, "eve.holt@reqres.in", "Eve", "Holt",
+            "https://reqres.in/img/faces/4-image.jpg");
+    private static final User CHARLES = new User(5, "charles.morris@reqres.in", "Charles", "Morris",
+            "https://reqres.in/img/faces/5-image.jpg");
+
+    private AppDatabase db;
+    private UserWriteQueue userWriteQueue;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl("http://localhost/")
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        DbDispatcher dbDispatcher = DbDispatcher.getInstance();
+        userWriteQueue = new UserWriteQueue(db, dbDispatcher, new OutboxPusher(db, apiService, dbDispatcher));
+        db.userDao().upsertUsers(Arrays.asList(JANET, EMMA, EVE));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void revalidate_keepsPushedEditAndImportedAvatar() throws Exception {
+        Result update = new Result();
+        Result avatar = new Result();
+        User editedJanet = new User(2, "janet.weaver@reqres.in", "Jane", "Weaver", JANET.getAvatar());
+        userWriteQueue.enqueueUpdate(editedJanet, update);
+        userWriteQueue.enqueueAvatar(3, "/data/thumbnails/3.webp", avatar);
+        assertNull(update.await());
+        assertNull(avatar.await());
+        // Simulates the outbox having been pushed
+        db.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM outbox");
+
+        // Eve differs on the server, Charles is new
+        User renamedEve = new User(4, "eve.holt@reqres.in", "Eva", "Holt", EVE.getAvatar());
+        List<User> changed = db.userDao().revalidateUsers(Arrays.asList(JANET, EMMA, renamedEve, CHARLES));
+
+        assertEquals(2, changed.size());
+        assertEquals("Jane", db.userDao().getUserById(2).getFirst_name());
+        assertEquals("/data/thumbnails/3.webp", db.userDao().getUserById(3).getAvatar());
+        assertEquals("Eva", db.userDao().getUserById(4).getFirst_name());
+        assertNotNull(db.userDao().getUserById(5));
+    }
+
+    @Test
+    public void revalidate_doesNotRestoreDeletedUser() throws Exception {
+        Result delete = new Result();
+        userWriteQueue.enqueueDelete(2, delete);
+        assertNull(delete.await());
+        db.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM outbox");
+
+        List<User> changed = db.userDao().revalidateUsers(Arrays.asList(JANET, EMMA, EVE));
+
+        assertTrue(changed.isEmpty());
+        assertNull(db.userDao().getUserById(2));
+    }
+
+    /**
+     * Callback that records the outcome of one queued write.
+     */
+    private static class Result implements UserRepository.Callback<Integer> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<String> error = new AtomicReference<>();
+
+        @Override
+        public void onResult(Integer result) {
+            done.countDown();
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            error.set(errorMessage);
+            done.countDown();
+        }
+
+        /**
+         * Waits for the write to finish.
+         *
+         * @return The error message, or null if the write succeeded.
+         */
+        String await() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            return error.get();
+        }
+    }
+}
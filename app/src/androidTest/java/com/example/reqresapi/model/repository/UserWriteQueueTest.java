@@ -0,0 +1,142 @@
+package com.example.reqresapi.model.repository;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.network.ApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of how the write queue merges changes of the same user within one batch window.
+ * The users are local, so no change is recorded in the outbox and nothing is sent to the API.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserWriteQueueTest {
+
+    private static final int USER_ID = IdSequence.LOCAL_ID_BASE + 1;
+
+    private AppDatabase db;
+    private UserWriteQueue userWriteQueue;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl("http://localhost/")
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        DbDispatcher dbDispatcher = DbDispatcher.getInstance();
+        userWriteQueue = new UserWriteQueue(db, dbDispatcher, new OutboxPusher(db, apiService, dbDispatcher));
+        db.userDao().insertUser(new User(USER_ID, "janet@example.com", "Janet", "Weaver", "old.webp"));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void avatarThenUpdate_keepsPickedAvatar() throws Exception {
+        Result avatar = new Result();
+        Result update = new Result();
+        userWriteQueue.enqueueAvatar(USER_ID, "new.webp", avatar);
+        // The edited user is built from the list item, so it still carries the old avatar
+        userWriteQueue.enqueueUpdate(new User(USER_ID, "janet@example.com", "Jane", "Weaver", "old.webp"), update);
+
+        assertNull(avatar.await());
+        assertNull(update.await());
+        User stored = db.userDao().getUserById(USER_ID);
+        assertEquals("Jane", stored.getFirst_name());
+        assertEquals("new.webp", stored.getAvatar());
+    }
+
+    @Test
+    public void updateThenAvatar_appliesBoth() throws Exception {
+        Result update = new Result();
+        Result avatar = new Result();
+        userWriteQueue.enqueueUpdate(new User(USER_ID, "janet@example.com", "Jane", "Weaver", "old.webp"), update);
+        userWriteQueue.enqueueAvatar(USER_ID, "new.webp", avatar);
+
+        assertNull(update.await());
+        assertNull(avatar.await());
+        User stored = db.userDao().getUserById(USER_ID);
+        assertEquals("Jane", stored.getFirst_name());
+        assertEquals("new.webp", stored.getAvatar());
+    }
+
+    @Test
+    public void deleteThenUpdate_rejectsUpdate() throws Exception {
+        Result delete = new Result();
+        Result update = new Result();
+        userWriteQueue.enqueueDelete(USER_ID, delete);
+        userWriteQueue.enqueueUpdate(new User(USER_ID, "janet@example.com", "Jane", "Weaver", "old.webp"), update);
+
+        assertNotNull(update.await());
+        assertNull(delete.await());
+        assertNull(db.userDao().getUserById(USER_ID));
+    }
+
+    @Test
+    public void deleteThenAvatar_rejectsAvatar() throws Exception {
+        Result delete = new Result();
+        Result avatar = new Result();
+        userWriteQueue.enqueueDelete(USER_ID, delete);
+        userWriteQueue.enqueueAvatar(USER_ID, "new.webp", avatar);
+
+        assertNotNull(avatar.await());
+        assertNull(delete.await());
+        assertNull(db.userDao().getUserById(USER_ID));
+    }
+
+    /**
+     * Callback that records the outcome of one queued write.
+     */
+    private static class Result implements UserRepository.Callback<Integer> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<String> error = new AtomicReference<>();
+
+        @Override
+        public void onResult(Integer result) {
+            done.countDown();
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            error.set(errorMessage);
+            done.countDown();
+        }
+
+        /**
+         * Waits for the write to finish.
+         *
+         * @return The error message, or null if the write succeeded.
+         */
+        String await() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            return error.get();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.reqresapi;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.repository.UserRepository;
+import com.example.reqresapi.model.repository.UserWriteQueue;
+
+/**
+ * Application class that sets up process-wide components before the first screen is shown.
+ * The Room database is opened in the background here, so first-screen latency does not include the database open.
+ */
+public class ReqResApplication extends Application {
+
+    private static final String TAG = "ReqResApplication";
+
+    private UserRepository userRepository;   // Shared by every ViewModel, created on first use
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, TAG + " onCreate - pre-warming database");
+
+        // Open the database and create the DAO off the main thread
+        AppDatabase.prewarm(this);
+
+        // Push changes that a previous session left in the outbox, for example while offline
+        UserWriteQueue.getInstance(this).pushPending();
+    }
+
+    /**
+     * Returns the application-scoped UserRepository, so screens and their ViewModels never build their own.
+     *
+     * @return The shared UserRepository instance.
+     */
+    public synchronized UserRepository getUserRepository() {
+        if (userRepository == null) {
+            userRepository = new UserRepository(this);
+        }
+        return userRepository;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.reqresapi;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * App-level Glide configuration for avatar images.
+ * Memory, bitmap pool and disk caches are bounded explicitly instead of scaling with the device,
+ * and avatars are decoded as RGB_565, which halves their memory since they have no transparency.
+ */
+@GlideModule
+public class ReqResGlideModule extends AppGlideModule {
+
+    private static final long MEMORY_CACHE_BYTES = 8L * 1024 * 1024;   // Decoded avatars kept ready for binding
+    private static final long BITMAP_POOL_BYTES = 4L * 1024 * 1024;    // Bitmaps kept for reuse by later decodes
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;    // Downloaded and resized avatars on disk
+    private static final String DISK_CACHE_DIR = "avatar-cache";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setMemoryCache(new LruResourceCache(MEMORY_CACHE_BYTES))
+                .setBitmapPool(new LruBitmapPool(BITMAP_POOL_BYTES))
+                .setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES))
+                // Hardware bitmaps are always ARGB_8888, so they are disallowed to keep the RGB_565 decode
+                .setDefaultRequestOptions(new RequestOptions()
+                        .format(DecodeFormat.PREFER_RGB_565)
+                        .disallowHardwareConfig())
+                .setLogLevel(Log.ERROR);
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // All configuration lives in this module, skip the legacy manifest scan at startup
+        return false;
+    }
+}
@@ -1,13 +1,159 @@
 package com.example.reqresapi.model.database;
 
+import android.content.Context;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
+import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.LocalEdit;
+import com.example.reqresapi.model.models.PendingChange;
+import com.example.reqresapi.model.models.RemoteKey;
 import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.models.UserFts;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-@Database(entities = {User.class}, version = 1)
+@Database(entities = {User.class, IdSequence.class, PendingChange.class, UserFts.class, RemoteKey.class, LocalEdit.class}, version = 7, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
 
     // this class extends RoomDatabase and serves as the main access point to your Room database.
     public abstract UserDao userDao();
+
+    public abstract OutboxDao outboxDao();
+
+    private static final String DATABASE_NAME = "user-database";
+    private static final int QUERY_THREADS = 2; // Threads Room uses for LiveData and paging queries
+
+    private static volatile AppDatabase instance;
+
+    /**
+     * Returns the process-wide database, opening it on first use.
+     * A single instance means one SQLiteOpenHelper, one schema validation and one set of Room executors per process.
+     *
+     * @param context Any context, the application context is used to open the database.
+     * @return The shared AppDatabase instance.
+     */
+    public static AppDatabase getInstance(Context context) {
+        AppDatabase db = instance;
+        if (db == null) {
+            synchronized (AppDatabase.class) {
+                db = instance;
+                if (db == null) {
+                    ExecutorService queryExecutor = Executors.newFixedThreadPool(QUERY_THREADS);
+                    db = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATIONS)
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING) // Readers never wait for the writer
+                            .setQueryExecutor(queryExecutor)
+                            .build();
+                    instance = db;
+                }
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Opens the database connection and creates the DAO on the database writer lane,
+     * so the first screen does not pay for opening the database and validating the schema.
+     *
+     * @param context Any context, the application context is used to open the database.
+     */
+    public static void prewarm(Context context) {
+        Context appContext = context.getApplicationContext();
+        DbDispatcher.getInstance().executeWrite(() -> {
+            AppDatabase db = getInstance(appContext);
+            db.getOpenHelper().getWritableDatabase(); // Forces the open, migrations and schema validation
+            db.userDao();
+        });
+    }
+
+    /**
+     * Version 2 adds the id_sequences table used to allocate IDs for locally added users.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `id_sequences` (`name` TEXT NOT NULL, `next_id` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+        }
+    };
+
+    /**
+     * Version 3 adds the outbox table holding local changes waiting to be pushed to the server.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `outbox` (`user_id` INTEGER NOT NULL, `operation` TEXT NOT NULL, "
+                    + "`first_name` TEXT, `last_name` TEXT, `email` TEXT, `avatar` TEXT, `updated_at` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`user_id`))");
+        }
+    };
+
+    /**
+     * Version 4 adds the users_fts full-text index with the triggers that keep it in sync with the users table,
+     * and builds the index for the existing users.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `users_fts` USING FTS4("
+                    + "`first_name` TEXT, `last_name` TEXT, `email` TEXT, content=`users`)");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_UPDATE BEFORE UPDATE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_DELETE BEFORE DELETE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_UPDATE AFTER UPDATE ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_INSERT AFTER INSERT ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+            database.execSQL("INSERT INTO `users_fts`(`users_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * Version 5 indexes the email column of the users table.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+        }
+    };
+
+    /**
+     * Version 6 adds the remote_keys table holding the next API page to load for each paged list.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `remote_keys` (`label` TEXT NOT NULL, `next_page` INTEGER, PRIMARY KEY(`label`))");
+        }
+    };
+
+    /**
+     * Version 7 adds the local_edits table marking API users changed or deleted on this device.
+     * Users with a change still waiting in the outbox are marked right away.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `local_edits` (`user_id` INTEGER NOT NULL, `edited_at` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`user_id`))");
+            database.execSQL("INSERT INTO `local_edits` (`user_id`, `edited_at`) SELECT `user_id`, `updated_at` FROM `outbox`");
+        }
+    };
+
+    /**
+     * Every migration, in version order. A schema change bumps the database version, exports the new schema
+     * under app/schemas and appends its migration here, where MigrationTest picks it up.
+     */
+    public static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7};
 }
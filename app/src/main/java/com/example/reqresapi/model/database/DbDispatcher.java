@@ -0,0 +1,188 @@
+package com.example.reqresapi.model.database;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches database work onto two separate lanes: a single serialized writer lane and a small pool of
+ * concurrent readers. This matches SQLite's WAL model, where one writer and several readers can run at the
+ * same time, so a slow write no longer blocks reads queued behind it.
+ * Each lane records its queue depth and how long tasks waited before they started running.
+ */
+public class DbDispatcher {
+
+    private static final int READER_THREADS = 3; // Number of concurrent reader threads
+
+    private static volatile DbDispatcher instance;
+
+    private final Lane writeLane;
+    private final Lane readLane;
+
+    /**
+     * Creates the dispatcher with one writer thread and {@link #READER_THREADS} reader threads.
+     */
+    private DbDispatcher() {
+        this(newPool("db-writer", 1), newPool("db-reader", READER_THREADS));
+    }
+
+    /**
+     * Creates a dispatcher that runs its lanes on the given executors, for example direct executors in tests.
+     * The write executor must run one task at a time.
+     *
+     * @param writeExecutor The executor of the writer lane.
+     * @param readExecutor  The executor of the reader lane.
+     */
+    public DbDispatcher(Executor writeExecutor, Executor readExecutor) {
+        this.writeLane = new Lane("db-writer", writeExecutor);
+        this.readLane = new Lane("db-reader", readExecutor);
+    }
+
+    private static Executor newPool(String name, int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+    }
+
+    /**
+     * Returns the process-wide dispatcher, so every repository shares the same single writer lane.
+     *
+     * @return The shared DbDispatcher instance.
+     */
+    public static DbDispatcher getInstance() {
+        if (instance == null) {
+            synchronized (DbDispatcher.class) {
+                if (instance == null) {
+                    instance = new DbDispatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a read-only database task on the reader pool.
+     *
+     * @param task The task to run.
+     */
+    public void executeRead(Runnable task) {
+        readLane.execute(task);
+    }
+
+    /**
+     * Runs a database task that writes on the serialized writer lane.
+     *
+     * @param task The task to run.
+     */
+    public void executeWrite(Runnable task) {
+        writeLane.execute(task);
+    }
+
+    /**
+     * @return A snapshot of the reader lane metrics.
+     */
+    public Metrics getReadMetrics() {
+        return readLane.snapshot();
+    }
+
+    /**
+     * @return A snapshot of the writer lane metrics.
+     */
+    public Metrics getWriteMetrics() {
+        return writeLane.snapshot();
+    }
+
+    /**
+     * Snapshot of the metrics of a single lane.
+     */
+    public static class Metrics {
+
+        public final String lane;
+        public final int queueDepth;        // Tasks waiting to start
+        public final int activeTasks;       // Tasks currently running
+        public final long completedTasks;   // Tasks that have started running so far
+        public final long averageWaitMs;    // Average time between submission and start
+        public final long maxWaitMs;        // Longest time between submission and start
+
+        Metrics(String lane, int queueDepth, int activeTasks, long completedTasks, long averageWaitMs, long maxWaitMs) {
+            this.lane = lane;
+            this.queueDepth = queueDepth;
+            this.activeTasks = activeTasks;
+            this.completedTasks = completedTasks;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        @Override
+        public String toString() {
+            return lane + " - queued: " + queueDepth + ", active: " + activeTasks + ", started: " + completedTasks
+                    + ", avg wait: " + averageWaitMs + "ms, max wait: " + maxWaitMs + "ms";
+        }
+    }
+
+    /**
+     * An executor that measures the queue depth and the wait time of every task it runs.
+     */
+    private static class Lane {
+
+        private final String name;
+        private final Executor executor;
+        private final AtomicInteger queuedTasks = new AtomicInteger();
+        private final AtomicInteger activeTasks = new AtomicInteger();
+        private final AtomicLong startedTasks = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        Lane(String name, Executor executor) {
+            this.name = name;
+            this.executor = executor;
+        }
+
+        void execute(Runnable task) {
+            long enqueuedAt = System.nanoTime();
+            queuedTasks.incrementAndGet();
+            executor.execute(() -> {
+                // Record how long the task waited in the queue before it started
+                long waitNanos = System.nanoTime() - enqueuedAt;
+                queuedTasks.decrementAndGet();
+                activeTasks.incrementAndGet();
+                startedTasks.incrementAndGet();
+                totalWaitNanos.addAndGet(waitNanos);
+                maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+                try {
+                    task.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                }
+            });
+        }
+
+        Metrics snapshot() {
+            long started = startedTasks.get();
+            long averageWaitNanos = started == 0 ? 0 : totalWaitNanos.get() / started;
+            return new Metrics(name, queuedTasks.get(), activeTasks.get(), started,
+                    TimeUnit.NANOSECONDS.toMillis(averageWaitNanos), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        }
+    }
+
+    /**
+     * Thread factory that gives each lane thread a readable name for debugging and profiling.
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + "-" + count.incrementAndGet());
+        }
+    }
+}
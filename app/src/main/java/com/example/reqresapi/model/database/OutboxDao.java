@@ -0,0 +1,43 @@
+package com.example.reqresapi.model.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.reqresapi.model.models.PendingChange;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) interface for the outbox of local changes waiting to be pushed to the server.
+ */
+@Dao
+public interface OutboxDao {
+
+    /**
+     * Stores a pending change, replacing any pending change for the same user.
+     *
+     * @param change The change to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertPendingChange(PendingChange change);
+
+    /**
+     * Retrieves all pending changes, oldest first.
+     *
+     * @return A list of all pending changes.
+     */
+    @Query("SELECT * FROM outbox ORDER BY updated_at ASC")
+    List<PendingChange> getPendingChanges();
+
+    /**
+     * Removes a pushed change, unless the user was changed again while the push was in flight.
+     *
+     * @param userId    The ID of the user whose change was pushed.
+     * @param updatedAt The update time of the change that was pushed.
+     * @return The number of removed rows.
+     */
+    @Query("DELETE FROM outbox WHERE user_id = :userId AND updated_at = :updatedAt")
+    int deletePushedChange(int userId, long updatedAt);
+}
@@ -0,0 +1,38 @@
+package com.example.reqresapi.model.database;
+
+import java.util.Locale;
+
+/**
+ * Turns free text typed by the user into an FTS MATCH expression.
+ */
+public final class SearchQuery {
+
+    private SearchQuery() {
+    }
+
+    /**
+     * Builds a prefix MATCH expression from the given text. The text is split into words the same way the FTS
+     * tokenizer splits the indexed columns, so FTS operators and quotes typed by the user are never interpreted.
+     * Every word becomes a prefix term, and all terms must match: "jan wea" matches "Janet Weaver".
+     *
+     * @param text The text typed by the user.
+     * @return The MATCH expression, or an empty string if the text contains no searchable words.
+     */
+    public static String toFtsMatch(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        StringBuilder match = new StringBuilder();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word).append('*');
+        }
+        return match.toString();
+    }
+}
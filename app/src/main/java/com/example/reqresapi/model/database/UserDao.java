@@ -1,13 +1,24 @@
 package com.example.reqresapi.model.database;
 
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.LocalEdit;
+import com.example.reqresapi.model.models.RemoteKey;
 import com.example.reqresapi.model.models.User;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Data Access Object (DAO) interface for interacting with the User entity in the Room database.
@@ -25,6 +36,33 @@ public interface UserDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertUser(User user);
 
+    /**
+     * Inserts a user with a newly allocated ID. An existing user with the same ID is never replaced,
+     * the insert fails instead and rolls back the surrounding transaction.
+     *
+     * @param user The User object to insert.
+     */
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    void insertNewUser(User user);
+
+    /**
+     * Inserts a batch of users into the database within a single transaction.
+     * Users whose ID already exists are skipped, so existing local edits are preserved.
+     *
+     * @param users The list of User objects to insert.
+     * @return The row ID of each inserted user, or -1 for users that were skipped.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertUsersIfAbsent(List<User> users);
+
+    /**
+     * Inserts or replaces a batch of users within a single transaction.
+     *
+     * @param users The list of User objects to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertUsers(List<User> users);
+
     /**
      * Retrieves a user by their ID.
      *
@@ -34,6 +72,24 @@ public interface UserDao {
     @Query("SELECT * FROM users WHERE id = :userId LIMIT 1")
     User getUserById(int userId);
 
+    /**
+     * Retrieves the users with the given IDs, using the primary key.
+     *
+     * @param userIds The IDs of the users to retrieve.
+     * @return The stored users among the given IDs, in no particular order.
+     */
+    @Query("SELECT * FROM users WHERE id IN (:userIds)")
+    List<User> getUsersByIds(List<Integer> userIds);
+
+    /**
+     * Retrieves a user by their email, using the email index.
+     *
+     * @param email The email of the user to retrieve.
+     * @return The User object with the provided email, or null if there is none.
+     */
+    @Query("SELECT * FROM users WHERE email = :email LIMIT 1")
+    User getUserByEmail(String email);
+
     /**
      * Retrieves all users from the database.
      *
@@ -42,6 +98,26 @@ public interface UserDao {
     @Query("SELECT * FROM users")
     List<User> getAllUsers();
 
+    /**
+     * Returns a PagingSource over all users, ordered by ID.
+     * Room invalidates the source whenever the users table changes, so only the visible window is loaded.
+     *
+     * @return A PagingSource keyed by item position.
+     */
+    @Query("SELECT * FROM users ORDER BY id ASC")
+    PagingSource<Integer, User> getUsersPagingSource();
+
+    /**
+     * Provides the users matching a full-text search as a PagingSource, ordered by ID.
+     * The search runs against the FTS index instead of scanning the users table.
+     *
+     * @param ftsMatch The FTS MATCH expression, for example "jan* wea*".
+     * @return A PagingSource over the matching users.
+     */
+    @Query("SELECT users.* FROM users JOIN users_fts ON users.id = users_fts.rowid "
+            + "WHERE users_fts MATCH :ftsMatch ORDER BY users.id ASC")
+    PagingSource<Integer, User> searchUsersPagingSource(String ftsMatch);
+
     /**
      * Updates a user's details based on their ID.
      *
@@ -54,6 +130,20 @@ public interface UserDao {
     @Query("UPDATE users SET first_name = :firstName, last_name = :lastName, email = :email, avatar = :avatarUri WHERE id = :userId")
     void updateUser(int userId, String firstName, String lastName, String email, String avatarUri);
 
+    /**
+     * Applies a merged change to a user. Null values leave the corresponding column unchanged,
+     * so an avatar-only change and a details change to the same user can be written with one statement.
+     *
+     * @param userId    The ID of the user to update.
+     * @param firstName The new first name, or null to keep the current one.
+     * @param lastName  The new last name, or null to keep the current one.
+     * @param email     The new email, or null to keep the current one.
+     * @param avatar    The new avatar URI or path, or null to keep the current one.
+     */
+    @Query("UPDATE users SET first_name = COALESCE(:firstName, first_name), last_name = COALESCE(:lastName, last_name), "
+            + "email = COALESCE(:email, email), avatar = COALESCE(:avatar, avatar) WHERE id = :userId")
+    void applyUserChange(int userId, String firstName, String lastName, String email, String avatar);
+
     /**
      * Deletes a user from the database based on their ID.
      *
@@ -62,6 +152,15 @@ public interface UserDao {
     @Query("DELETE FROM users WHERE id = :userId")
     void deleteUser(int userId);
 
+    /**
+     * Counts the users that came from the API, using a primary key range so local users are not read.
+     *
+     * @param localIdBase The first ID given to locally added users.
+     * @return The number of stored users with an ID below the local ID base.
+     */
+    @Query("SELECT COUNT(*) FROM users WHERE id < :localIdBase")
+    int countServerUsers(int localIdBase);
+
     /**
      * Retrieves all user IDs from the database.
      *
@@ -78,5 +177,140 @@ public interface UserDao {
      */
     @Query("UPDATE users SET avatar = :avatar WHERE id = :userId")
     void updateUserAvatar(int userId, String avatar);
-}
 
+    /**
+     * Retrieves the next ID of a named ID sequence.
+     *
+     * @param name The name of the sequence.
+     * @return The next ID, or null if the sequence has not been used yet.
+     */
+    @Query("SELECT next_id FROM id_sequences WHERE name = :name")
+    Integer getSequenceNextId(String name);
+
+    /**
+     * Retrieves the highest user ID in the database, using the primary key index.
+     *
+     * @return The highest user ID, or null if the table is empty.
+     */
+    @Query("SELECT MAX(id) FROM users")
+    Integer getMaxUserId();
+
+    /**
+     * Inserts or replaces a named ID sequence.
+     *
+     * @param sequence The sequence to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertIdSequence(IdSequence sequence);
+
+    /**
+     * Marks a user as changed or deleted on this device, see {@link LocalEdit}.
+     *
+     * @param localEdit The marker to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertLocalEdit(LocalEdit localEdit);
+
+    /**
+     * Retrieves which of the given users were changed or deleted on this device, including changes that are still
+     * waiting in the outbox, using the primary keys.
+     *
+     * @param userIds The IDs of the users to check.
+     * @return The IDs among the given ones that must keep their local state.
+     */
+    @Query("SELECT user_id FROM local_edits WHERE user_id IN (:userIds) "
+            + "UNION SELECT user_id FROM outbox WHERE user_id IN (:userIds)")
+    List<Integer> getLocallyChangedUserIds(List<Integer> userIds);
+
+    /**
+     * Compares users fetched from the API with the stored rows and writes only the differences.
+     * New users are added and stored users whose details differ from the API are replaced. Users changed or deleted
+     * on this device are left alone, also once their change has been pushed, so local edits take precedence.
+     *
+     * @param users The users as returned by the API.
+     * @return The users that were added or replaced.
+     */
+    @Transaction
+    default List<User> revalidateUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        List<Integer> userIds = new ArrayList<>(users.size());
+        for (User user : users) {
+            userIds.add(user.getId());
+        }
+        Set<Integer> locallyChanged = new HashSet<>(getLocallyChangedUserIds(userIds));
+        Map<Integer, User> storedUsers = new HashMap<>();
+        for (User storedUser : getUsersByIds(userIds)) {
+            storedUsers.put(storedUser.getId(), storedUser);
+        }
+
+        List<User> changedUsers = new ArrayList<>();
+        for (User user : users) {
+            if (locallyChanged.contains(user.getId())) {
+                continue;
+            }
+            User storedUser = storedUsers.get(user.getId());
+            if (storedUser == null
+                    || !Objects.equals(storedUser.getEmail(), user.getEmail())
+                    || !Objects.equals(storedUser.getFirst_name(), user.getFirst_name())
+                    || !Objects.equals(storedUser.getLast_name(), user.getLast_name())
+                    || !Objects.equals(storedUser.getAvatar(), user.getAvatar())) {
+                changedUsers.add(user);
+            }
+        }
+        if (!changedUsers.isEmpty()) {
+            upsertUsers(changedUsers);
+        }
+        return changedUsers;
+    }
+
+    /**
+     * Retrieves the paging key of a remote list.
+     *
+     * @param label The label of the list.
+     * @return The key, or null if no page of the list has been stored yet.
+     */
+    @Query("SELECT * FROM remote_keys WHERE label = :label")
+    RemoteKey getRemoteKey(String label);
+
+    /**
+     * Inserts or replaces the paging key of a remote list.
+     *
+     * @param remoteKey The key to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertRemoteKey(RemoteKey remoteKey);
+
+    /**
+     * Returns the ID the next locally added user will receive, without reserving it.
+     * The sequence never hands out an ID that is already taken: if a user, for example from the API, was stored
+     * at or above the next ID of the sequence, allocation continues after the highest existing ID.
+     * A sequence that has not been used yet starts at the local ID base.
+     *
+     * @return The next local user ID.
+     */
+    @Transaction
+    default int peekNextUserId() {
+        Integer nextId = getSequenceNextId(IdSequence.USERS);
+        Integer maxId = getMaxUserId();
+        return Math.max(nextId != null ? nextId : IdSequence.LOCAL_ID_BASE, maxId == null ? 0 : maxId + 1);
+    }
+
+    /**
+     * Assigns the next local ID to the user and inserts it, advancing the sequence in the same transaction,
+     * so concurrent adds never receive the same ID. IDs that are already taken are skipped, see
+     * {@link #peekNextUserId}, and an existing user is never replaced: a conflicting insert fails instead.
+     *
+     * @param user The User object to insert, its ID is overwritten.
+     * @return The ID assigned to the user.
+     */
+    @Transaction
+    default int insertUserWithNextId(User user) {
+        int nextId = peekNextUserId();
+        user.setId(nextId);
+        insertNewUser(user);
+        upsertIdSequence(new IdSequence(IdSequence.USERS, nextId + 1));
+        return nextId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.reqresapi.model.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Represents a named ID sequence in the Room database, mapping to the "id_sequences" table.
+ * Each row holds the next ID to hand out for locally created records, so allocating an ID is a single row lookup.
+ */
+@Entity(tableName = "id_sequences")
+public class IdSequence {
+
+    public static final String USERS = "users";            // Sequence used for locally added users
+    public static final int LOCAL_ID_BASE = 1_000_000;     // Local user IDs start here, apart from server IDs
+
+    @PrimaryKey
+    @NonNull
+    private String name;
+
+    @ColumnInfo(name = "next_id")
+    private int nextId;
+
+    public IdSequence(@NonNull String name, int nextId) {
+        this.name = name;
+        this.nextId = nextId;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public int getNextId() {
+        return nextId;
+    }
+
+    public void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+}
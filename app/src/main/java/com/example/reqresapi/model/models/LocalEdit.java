@@ -0,0 +1,43 @@
+package com.example.reqresapi.model.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Marks an API user that was changed or deleted on this device, mapping to the "local_edits" table.
+ * Unlike the outbox row of the change, the marker is kept after the change has been pushed: the API does not
+ * persist changes, so a sync must never replace or restore the user with the server's copy.
+ */
+@Entity(tableName = "local_edits")
+public class LocalEdit {
+
+    @PrimaryKey
+    @ColumnInfo(name = "user_id")
+    private int userId;
+
+    @ColumnInfo(name = "edited_at")
+    private long editedAt;      // Time of the latest local change
+
+    public LocalEdit(int userId, long editedAt) {
+        this.userId = userId;
+        this.editedAt = editedAt;
+    }
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getEditedAt() {
+        return editedAt;
+    }
+
+    public void setEditedAt(long editedAt) {
+        this.editedAt = editedAt;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.reqresapi.model.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Represents a local change that still has to be pushed to the server, mapping to the "outbox" table.
+ * There is at most one row per user: a later change to the same user replaces the pending one.
+ */
+@Entity(tableName = "outbox")
+public class PendingChange {
+
+    public static final String UPDATE = "UPDATE";   // Push the current state of the user with PUT
+    public static final String DELETE = "DELETE";   // Delete the user on the server
+
+    @PrimaryKey
+    @ColumnInfo(name = "user_id")
+    private int userId;
+
+    @NonNull
+    private String operation;
+
+    @ColumnInfo(name = "first_name")
+    private String firstName;
+
+    @ColumnInfo(name = "last_name")
+    private String lastName;
+
+    private String email;
+    private String avatar;
+
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;     // Time of the latest change, used to detect changes made while a push was in flight
+
+    public PendingChange(int userId, @NonNull String operation, String firstName, String lastName, String email,
+                         String avatar, long updatedAt) {
+        this.userId = userId;
+        this.operation = operation;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.avatar = avatar;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(@NonNull String operation) {
+        this.operation = operation;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.reqresapi.model.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Represents a paging key of a remote list in the Room database, mapping to the "remote_keys" table.
+ * Each row holds the next API page to load for a list, so an append continues where the last stored page ended.
+ */
+@Entity(tableName = "remote_keys")
+public class RemoteKey {
+
+    public static final String USERS = "users";    // Key of the users list
+
+    @PrimaryKey
+    @NonNull
+    private String label;
+
+    @ColumnInfo(name = "next_page")
+    private Integer nextPage;   // Null once the last page has been stored
+
+    public RemoteKey(@NonNull String label, Integer nextPage) {
+        this.label = label;
+        this.nextPage = nextPage;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(@NonNull String label) {
+        this.label = label;
+    }
+
+    public Integer getNextPage() {
+        return nextPage;
+    }
+
+    public void setNextPage(Integer nextPage) {
+        this.nextPage = nextPage;
+    }
+}
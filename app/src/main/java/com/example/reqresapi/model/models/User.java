@@ -1,14 +1,16 @@
 package com.example.reqresapi.model.models;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * Represents the User entity in the Room database, mapping to the "users" table.
  * This class is used to define the structure of the User table in the database.
+ * The email column is indexed, so lookups by email do not scan the table.
  */
 
-@Entity(tableName = "users")
+@Entity(tableName = "users", indices = {@Index(value = "email")})
 public class User {
 
     // Represents the User entity in the Room database, mapping to the users table.
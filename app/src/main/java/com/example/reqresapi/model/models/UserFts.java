@@ -0,0 +1,48 @@
+package com.example.reqresapi.model.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over the names and email of the users, mapping to the "users_fts" FTS4 table.
+ * The table is an external content table over "users": it stores only the index, and Room keeps it in sync
+ * with triggers on every insert, update and delete of a user. Its rowid is the ID of the indexed user.
+ */
+@Fts4(contentEntity = User.class)
+@Entity(tableName = "users_fts")
+public class UserFts {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+
+    private String first_name;
+    private String last_name;
+    private String email;
+
+    public UserFts(int rowId, String first_name, String last_name, String email) {
+        this.rowId = rowId;
+        this.first_name = first_name;
+        this.last_name = last_name;
+        this.email = email;
+    }
+
+    // Getters
+    public int getRowId() {
+        return rowId;
+    }
+
+    public String getFirst_name() {
+        return first_name;
+    }
+
+    public String getLast_name() {
+        return last_name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.reqresapi.model.network;
 
+import com.example.reqresapi.model.models.User;
 import com.example.reqresapi.model.models.UserResponse;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
+import retrofit2.http.Body;
+import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.PUT;
+import retrofit2.http.Path;
 import retrofit2.http.Query;
 
 /**
@@ -21,5 +27,24 @@ public interface ApiService {
     @GET("api/users")
     Call<UserResponse> getUsers(@Query("page") int page);
 
+    /**
+     * Replaces a user's details on the server.
+     *
+     * @param userId The ID of the user to update.
+     * @param user   The current details of the user.
+     * @return A Call object containing the raw response body.
+     */
+    @PUT("api/users/{id}")
+    Call<ResponseBody> updateUser(@Path("id") int userId, @Body User user);
+
+    /**
+     * Deletes a user on the server.
+     *
+     * @param userId The ID of the user to delete.
+     * @return A Call object containing the raw response body.
+     */
+    @DELETE("api/users/{id}")
+    Call<ResponseBody> deleteUser(@Path("id") int userId);
+
 }
 
@@ -1,32 +1,92 @@
 package com.example.reqresapi.model.network;
 
+import android.content.Context;
+
+import com.example.reqresapi.model.models.UserResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
  * Singleton class responsible for creating and providing a Retrofit instance configured with the base URL and converters.
- * This class ensures that only one instance of Retrofit is created and reused throughout the application.
+ * This class ensures that only one network stack is created and reused throughout the application:
+ * one OkHttpClient with a tuned connection pool, HTTP/2 support and an on-disk HTTP cache, and one ApiService proxy.
  */
 public class RetrofitClient {
 
     private static final String BASE_URL = "https://reqres.in/"; // The base URL for the API
-    private static Retrofit retrofit = null; // Singleton instance of Retrofit
+    private static final String CACHE_DIR = "http-cache"; // Directory inside the app cache dir for cached responses
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024; // Maximum size of the HTTP cache
+    private static final int MAX_IDLE_CONNECTIONS = 5; // Idle connections kept alive in the pool
+    private static final long KEEP_ALIVE_MINUTES = 5; // How long an idle connection is kept alive
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long WRITE_TIMEOUT_SECONDS = 20;
+
+    private static volatile ApiService apiService = null; // Singleton ApiService proxy
+    private static OkHttpClient okHttpClient = null; // Shared HTTP client, guarded by the class lock
 
     /**
      * Returns the ApiService interface for making API calls.
-     * If the Retrofit instance does not exist, it creates one.
+     * If the network stack does not exist, it creates one. Creation is thread-safe and happens only once.
      *
+     * @param context The context used to locate the HTTP cache directory.
      * @return The ApiService interface for interacting with the API.
      */
-    public static ApiService getApiService() {
-        if (retrofit == null) {
-            // Create a new Retrofit instance if one doesn't exist
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL) // Set the base URL for the API
-                    .addConverterFactory(GsonConverterFactory.create()) // Add Gson converter for JSON parsing
+    public static ApiService getApiService(Context context) {
+        ApiService service = apiService;
+        if (service == null) {
+            synchronized (RetrofitClient.class) {
+                service = apiService;
+                if (service == null) {
+                    // Parse user pages with the streaming adapter instead of reflection
+                    Gson gson = new GsonBuilder()
+                            .registerTypeAdapter(UserResponse.class, new UserResponseTypeAdapter())
+                            .create();
+
+                    // Create the Retrofit instance and the ApiService proxy once for the whole process
+                    Retrofit retrofit = new Retrofit.Builder()
+                            .baseUrl(BASE_URL) // Set the base URL for the API
+                            .client(getOkHttpClient(context)) // Use the shared, tuned HTTP client
+                            .addConverterFactory(GsonConverterFactory.create(gson)) // Add Gson converter for JSON parsing
+                            .build();
+                    service = retrofit.create(ApiService.class);
+                    apiService = service;
+                }
+            }
+        }
+        return service; // Return the ApiService implementation
+    }
+
+    /**
+     * Returns the shared OkHttpClient, creating it on first use.
+     * The client revalidates cached responses with ETag/Last-Modified, so revisiting a page costs a 304.
+     *
+     * @param context The context used to locate the HTTP cache directory.
+     * @return The shared OkHttpClient.
+     */
+    public static synchronized OkHttpClient getOkHttpClient(Context context) {
+        if (okHttpClient == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+            okHttpClient = new OkHttpClient.Builder()
+                    .cache(new Cache(cacheDir, CACHE_SIZE_BYTES))
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                     .build();
         }
-        return retrofit.create(ApiService.class); // Return the ApiService implementation
+        return okHttpClient;
     }
 }
-
@@ -0,0 +1,180 @@
+package com.example.reqresapi.model.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+import retrofit2.Response;
+
+/**
+ * Process-wide scheduler for delayed API retries.
+ * Delays use exponential backoff with full jitter, and a server supplied Retry-After header is honored on 429/503 responses.
+ * Every host has a retry budget (a token bucket), so a failing backend is not hammered by many callers at once.
+ * Retries run on a dedicated scheduler thread that never shares a thread with database work.
+ */
+public class RetryScheduler {
+
+    private static final String TAG = "RetryScheduler";
+    static final long MAX_DELAY_MS = 30_000;                    // Upper bound for a single backoff delay
+    private static final long MAX_RETRY_AFTER_MS = 60_000;      // Upper bound for a server supplied Retry-After delay
+    static final int MAX_RETRY_TOKENS = 10;                     // Retries a host may use in a burst
+    static final long RETRY_TOKEN_REFILL_MS = 6_000;            // Time needed to earn back one retry token
+
+    private static volatile RetryScheduler instance;
+
+    private final ScheduledExecutorService scheduler;
+    private final LongUnaryOperator jitter;     // Picks a delay between 0 and the given ceiling, both inclusive
+    private final LongSupplier clock;           // Monotonic time in milliseconds, used to refill the retry budgets
+    private final Map<String, RetryBudget> budgets = new HashMap<>();
+
+    private RetryScheduler() {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "retry-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                ceiling -> ThreadLocalRandom.current().nextLong(ceiling + 1),
+                SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * Creates a scheduler with the given thread, jitter and clock, so tests can make delays and budgets deterministic.
+     *
+     * @param scheduler The executor the retries run on.
+     * @param jitter    Picks the delay of a retry between 0 and the backoff ceiling, both inclusive.
+     * @param clock     Monotonic time in milliseconds.
+     */
+    RetryScheduler(ScheduledExecutorService scheduler, LongUnaryOperator jitter, LongSupplier clock) {
+        this.scheduler = scheduler;
+        this.jitter = jitter;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the process-wide RetryScheduler, creating it on first use.
+     *
+     * @return The shared RetryScheduler instance.
+     */
+    public static RetryScheduler getInstance() {
+        if (instance == null) {
+            synchronized (RetryScheduler.class) {
+                if (instance == null) {
+                    instance = new RetryScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Tries to take one retry from the budget of the given host.
+     *
+     * @param host The host the failed request was sent to.
+     * @return true if a retry is allowed, false if the host's retry budget is exhausted.
+     */
+    public boolean tryAcquireRetry(String host) {
+        RetryBudget budget;
+        synchronized (budgets) {
+            budget = budgets.get(host);
+            if (budget == null) {
+                budget = new RetryBudget(clock);
+                budgets.put(host, budget);
+            }
+        }
+        return budget.tryAcquire();
+    }
+
+    /**
+     * Computes the delay before the next retry.
+     * A Retry-After header on a 429 or 503 response takes precedence, otherwise exponential backoff with full jitter is used.
+     *
+     * @param baseDelayMs The base delay of the first retry.
+     * @param attempt     The zero-based index of the retry about to be made.
+     * @param response    The failed response, or null if the request failed without a response.
+     * @return The delay in milliseconds.
+     */
+    public long computeDelayMs(long baseDelayMs, int attempt, Response<?> response) {
+        long retryAfterMs = parseRetryAfterMs(response);
+        if (retryAfterMs >= 0) {
+            return Math.min(retryAfterMs, MAX_RETRY_AFTER_MS);
+        }
+
+        // Full jitter: pick a random delay between 0 and the exponential backoff ceiling
+        long ceiling = Math.min(MAX_DELAY_MS, baseDelayMs << Math.min(attempt, 16));
+        return jitter.applyAsLong(ceiling);
+    }
+
+    /**
+     * Runs the given task on the retry scheduler thread after the given delay.
+     *
+     * @param task    The task to run.
+     * @param delayMs The delay in milliseconds.
+     */
+    public void schedule(Runnable task, long delayMs) {
+        scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the Retry-After header of a 429 or 503 response, supporting both delay-seconds and HTTP-date values.
+     *
+     * @param response The failed response, or null.
+     * @return The requested delay in milliseconds, or -1 if no usable Retry-After header is present.
+     */
+    private long parseRetryAfterMs(Response<?> response) {
+        if (response == null || (response.code() != 429 && response.code() != 503)) {
+            return -1;
+        }
+
+        String retryAfter = response.headers().get("Retry-After");
+        if (retryAfter == null) {
+            return -1;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            if (date != null) {
+                return Math.max(0, date.getTime() - System.currentTimeMillis());
+            }
+            Log.w(TAG, "Ignoring malformed Retry-After header: " + retryAfter);
+            return -1;
+        }
+    }
+
+    /**
+     * Token bucket limiting how many retries can be sent to a single host.
+     */
+    private static class RetryBudget {
+
+        private final LongSupplier clock;
+        private double tokens = MAX_RETRY_TOKENS;
+        private long lastRefillAt;
+
+        RetryBudget(LongSupplier clock) {
+            this.clock = clock;
+            this.lastRefillAt = clock.getAsLong();
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = clock.getAsLong();
+            tokens = Math.min(MAX_RETRY_TOKENS, tokens + (double) (now - lastRefillAt) / RETRY_TOKEN_REFILL_MS);
+            lastRefillAt = now;
+
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.reqresapi.model.repository;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.reqresapi.R;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports picked avatar images into app-private storage as small WebP thumbnails.
+ * The original image is decoded once, downsampled with {@code inSampleSize} to about the size of the avatar view,
+ * and written to the files directory. Binding then decodes the small file instead of the multi-megabyte original,
+ * and the avatar keeps working after the URI permission of the picker has expired.
+ */
+public class AvatarImporter {
+
+    private static final String TAG = "AvatarImporter";
+    private static final String AVATAR_DIR = "avatars";
+    private static final int WEBP_QUALITY = 80;
+
+    private static volatile AvatarImporter instance;
+
+    private final ContentResolver contentResolver;
+    private final File avatarDir;
+    private final int maxEdgePx;        // Longest edge of a thumbnail, the longest edge of the avatar view
+    private final ExecutorService importExecutor;
+
+    private AvatarImporter(Context context) {
+        this.contentResolver = context.getContentResolver();
+        this.avatarDir = new File(context.getFilesDir(), AVATAR_DIR);
+        this.maxEdgePx = Math.max(context.getResources().getDimensionPixelSize(R.dimen.avatar_width),
+                context.getResources().getDimensionPixelSize(R.dimen.avatar_height));
+        // Decoding is CPU and IO heavy, so it runs on its own thread instead of a database lane
+        this.importExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "avatar-import"));
+    }
+
+    /**
+     * Returns the process-wide avatar importer, creating it on first use.
+     *
+     * @param context The context used to read picked images and to locate the files directory.
+     * @return The shared AvatarImporter instance.
+     */
+    public static AvatarImporter getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AvatarImporter.class) {
+                if (instance == null) {
+                    instance = new AvatarImporter(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Imports a picked image as the avatar thumbnail of a user on a background thread.
+     * The path of the written thumbnail is returned via the provided callback.
+     *
+     * @param userId   The ID of the user the avatar belongs to.
+     * @param uri      The URI of the picked image.
+     * @param callback The callback to handle the thumbnail path or error of the import.
+     */
+    public void importAvatar(int userId, Uri uri, UserRepository.Callback<String> callback) {
+        importExecutor.execute(() -> {
+            try {
+                File thumbnail = writeThumbnail(userId, uri);
+                Log.d(TAG, TAG + " importAvatar - " + thumbnail.getName() + " : " + thumbnail.length() + " bytes");
+                callback.onResult(thumbnail.getAbsolutePath());
+
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "importAvatar - Error importing image", e);
+                callback.onError("Failed to import image");
+            }
+        });
+    }
+
+    /**
+     * Deletes the older thumbnails of a user, keeping the given one. Runs on the import thread.
+     *
+     * @param userId      The ID of the user.
+     * @param currentPath The path of the thumbnail that is in use.
+     */
+    public void deleteOldThumbnails(int userId, String currentPath) {
+        importExecutor.execute(() -> {
+            File[] files = avatarDir.listFiles((dir, name) -> name.startsWith(filePrefix(userId)));
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                if (!file.getAbsolutePath().equals(currentPath) && !file.delete()) {
+                    Log.w(TAG, "deleteOldThumbnails - could not delete " + file.getName());
+                }
+            }
+        });
+    }
+
+    /**
+     * Decodes, downsamples and rotates the picked image, then writes it as a WebP file.
+     * Every import gets a new file name, so image caches keyed by the path never return an older avatar.
+     *
+     * @param userId The ID of the user the avatar belongs to.
+     * @param uri    The URI of the picked image.
+     * @return The written thumbnail file.
+     * @throws IOException If the image cannot be read or the thumbnail cannot be written.
+     */
+    private File writeThumbnail(int userId, Uri uri) throws IOException {
+        // Read only the image bounds first to pick the sample size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream input = openInputStream(uri)) {
+            BitmapFactory.decodeStream(input, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + uri);
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = computeSampleSize(options.outWidth, options.outHeight);
+        Bitmap bitmap;
+        try (InputStream input = openInputStream(uri)) {
+            bitmap = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("Failed to decode image: " + uri);
+        }
+
+        bitmap = scaleAndRotate(bitmap, readRotationDegrees(uri));
+
+        if (!avatarDir.isDirectory() && !avatarDir.mkdirs()) {
+            throw new IOException("Cannot create " + avatarDir);
+        }
+        File thumbnail = new File(avatarDir, filePrefix(userId) + System.currentTimeMillis() + ".webp");
+        File tempFile = new File(avatarDir, thumbnail.getName() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            if (!bitmap.compress(webpFormat(), WEBP_QUALITY, output)) {
+                throw new IOException("Failed to encode thumbnail");
+            }
+        } finally {
+            bitmap.recycle();
+        }
+
+        // Rename only once the file is complete, so a partially written thumbnail is never referenced
+        if (!tempFile.renameTo(thumbnail)) {
+            tempFile.delete();
+            throw new IOException("Cannot write " + thumbnail);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Picks the largest power of two sample size that keeps the longest edge at or above the thumbnail size.
+     *
+     * @param width  The width of the original image.
+     * @param height The height of the original image.
+     * @return The sample size.
+     */
+    private int computeSampleSize(int width, int height) {
+        int longestEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longestEdge / (sampleSize * 2) >= maxEdgePx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Scales the decoded bitmap down to the thumbnail size and applies the EXIF rotation in one step.
+     *
+     * @param bitmap          The decoded, downsampled bitmap.
+     * @param rotationDegrees The rotation stored in the EXIF data of the original.
+     * @return The final bitmap, the given bitmap is recycled if a new one was created.
+     */
+    private Bitmap scaleAndRotate(Bitmap bitmap, int rotationDegrees) {
+        float scale = Math.min(1f, (float) maxEdgePx / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        if (scale == 1f && rotationDegrees == 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotationDegrees);
+        Bitmap result = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (result != bitmap) {
+            bitmap.recycle();
+        }
+        return result;
+    }
+
+    /**
+     * @param uri The URI of the picked image.
+     * @return The rotation in degrees stored in the EXIF data, or 0 if there is none.
+     */
+    private int readRotationDegrees(Uri uri) {
+        try (InputStream input = openInputStream(uri)) {
+            int orientation = new ExifInterface(input)
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;   // Formats without EXIF data, such as PNG
+        }
+    }
+
+    private InputStream openInputStream(Uri uri) throws IOException {
+        InputStream input = contentResolver.openInputStream(uri);
+        if (input == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return input;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        // WEBP_LOSSY replaces the deprecated WEBP format from Android 11 on
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static String filePrefix(int userId) {
+        return "user-" + userId + "-";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.reqresapi.model.repository;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Scope that ties repository futures to the lifetime of their owner, such as a ViewModel.
+ * Cancelling the scope cancels every future it still tracks: queued database reads are dropped, page requests
+ * nobody else waits for cancel their HTTP call, and results are no longer delivered to the owner's callbacks,
+ * which releases them. Database writes still run, only their results are dropped.
+ * Futures started after the scope has been cancelled are cancelled right away.
+ */
+public class CancellationScope {
+
+    private final Set<CompletableFuture<?>> futures = Collections.newSetFromMap(new IdentityHashMap<>()); // Guarded by itself
+    private volatile boolean cancelled;
+
+    /**
+     * Tracks a future until it completes, so cancelling the scope cancels it.
+     *
+     * @param future The future to track.
+     * @return The same future.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        synchronized (futures) {
+            if (!cancelled) {
+                futures.add(future);
+            }
+        }
+        if (cancelled) {
+            future.cancel(false);   // The owner is already gone
+            return future;
+        }
+
+        future.whenComplete((result, error) -> {
+            synchronized (futures) {
+                futures.remove(future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Tracks a future and passes its outcome to a callback, unless the future was cancelled.
+     * The callback is only referenced until the future completes or the scope is cancelled.
+     *
+     * @param future   The future of the operation.
+     * @param callback The callback to notify.
+     */
+    public <T> void deliver(CompletableFuture<T> future, UserRepository.Callback<T> callback) {
+        track(future).whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                return;     // The owner is gone, drop the result
+            }
+            notifyCallback(callback, result, error);
+        });
+    }
+
+    /**
+     * Cancels every tracked future and every future tracked from now on.
+     */
+    public void cancel() {
+        CompletableFuture<?>[] pending;
+        synchronized (futures) {
+            cancelled = true;
+            pending = futures.toArray(new CompletableFuture<?>[0]);
+            futures.clear();
+        }
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @return true once the scope has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Passes the outcome of a future to a callback. The callback runs inside a completion stage nobody reads,
+     * so an exception it throws is handed to the thread's uncaught exception handler instead of being lost,
+     * just like an exception thrown by a callback called directly on this thread.
+     *
+     * @param callback The callback to notify.
+     * @param result   The result of the future, if it succeeded.
+     * @param error    The failure of the future, or null if it succeeded.
+     */
+    static <T> void notifyCallback(UserRepository.Callback<T> callback, T result, Throwable error) {
+        try {
+            if (error == null) {
+                callback.onResult(result);
+            } else {
+                callback.onError(UserRepository.errorMessage(error));
+            }
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Cancels an upstream future when a future derived from it is cancelled. Dependent stages such as
+     * {@code thenApply} or {@code thenCompose} do not pass cancellation back to the stage they were created from.
+     *
+     * @param dependent The future derived from the upstream future.
+     * @param upstream  The future whose work should stop when the dependent future is cancelled.
+     * @return The dependent future.
+     */
+    public static <T> CompletableFuture<T> linkCancellation(CompletableFuture<T> dependent, CompletableFuture<?> upstream) {
+        dependent.whenComplete((result, error) -> {
+            if (dependent.isCancelled()) {
+                upstream.cancel(false);
+            }
+        });
+        return dependent;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.reqresapi.model.repository;
+
+import android.util.Log;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.PendingChange;
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.network.ApiService;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Pushes the pending changes of the outbox table to the server, one request at a time and oldest first.
+ * A change is removed from the outbox only after the server accepted it, and only if the user was not changed
+ * again while the request was in flight. A failed push stops the run and leaves the remaining changes for the next run.
+ */
+public class OutboxPusher {
+
+    private static final String TAG = "OutboxPusher";
+
+    private final AppDatabase db;
+    private final ApiService apiService;
+    private final DbDispatcher dbDispatcher;
+    private final AtomicBoolean pushing = new AtomicBoolean();          // True while a push run is in progress
+    private final AtomicBoolean pushRequested = new AtomicBoolean();    // Set when a push was requested during a run
+
+    /**
+     * Creates a pusher that reads the outbox from the given database and sends the changes through the given API service.
+     *
+     * @param db           The database holding the outbox table.
+     * @param apiService   The API service used to send the changes.
+     * @param dbDispatcher The dispatcher used for outbox reads and writes.
+     */
+    OutboxPusher(AppDatabase db, ApiService apiService, DbDispatcher dbDispatcher) {
+        this.db = db;
+        this.apiService = apiService;
+        this.dbDispatcher = dbDispatcher;
+    }
+
+    /**
+     * Pushes all pending changes. If a push run is already in progress, another run follows once it has finished.
+     */
+    public void pushPending() {
+        pushPending(null);
+    }
+
+    /**
+     * Pushes all pending changes. If a push run is already in progress, another run follows once it has finished
+     * and the callback is invoked right away with 0.
+     *
+     * @param callback The callback receiving the number of changes accepted by the server, or null.
+     */
+    public void pushPending(UserRepository.Callback<Integer> callback) {
+        if (!pushing.compareAndSet(false, true)) {
+            pushRequested.set(true);
+            if (callback != null) {
+                callback.onResult(0);
+            }
+            return;
+        }
+
+        pushRequested.set(false);
+        dbDispatcher.executeRead(() -> {
+            try {
+                List<PendingChange> changes = db.outboxDao().getPendingChanges();
+                Log.d(TAG, TAG + " pushPending - " + changes.size() + " pending changes");
+                pushNext(changes, 0, callback);
+
+            } catch (Exception e) {
+                Log.e(TAG, "pushPending - Error reading the outbox", e);
+                finishRun(callback, null, "Failed to read pending changes");
+            }
+        });
+    }
+
+    /**
+     * Sends the change at the given index and continues with the next one once the server accepted it.
+     *
+     * @param changes  The pending changes of this run.
+     * @param index    The index of the change to send.
+     * @param callback The callback of the run, or null.
+     */
+    private void pushNext(List<PendingChange> changes, int index, UserRepository.Callback<Integer> callback) {
+        if (index >= changes.size()) {
+            finishRun(callback, index, null);
+            return;
+        }
+
+        PendingChange change = changes.get(index);
+        Call<ResponseBody> call = PendingChange.DELETE.equals(change.getOperation())
+                ? apiService.deleteUser(change.getUserId())
+                : apiService.updateUser(change.getUserId(), new User(change.getUserId(), change.getEmail(),
+                        change.getFirstName(), change.getLastName(), change.getAvatar()));
+
+        call.enqueue(new retrofit2.Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                if (response.body() != null) {
+                    response.body().close();
+                }
+
+                // A user that no longer exists on the server needs no further delete
+                boolean accepted = response.isSuccessful()
+                        || (response.code() == 404 && PendingChange.DELETE.equals(change.getOperation()));
+                if (!accepted) {
+                    Log.w(TAG, "pushPending - server rejected change for user " + change.getUserId() + " : " + response.code());
+                    finishRun(callback, null, "Push failed with HTTP " + response.code());
+                    return;
+                }
+
+                dbDispatcher.executeWrite(() -> {
+                    try {
+                        db.outboxDao().deletePushedChange(change.getUserId(), change.getUpdatedAt());
+                        pushNext(changes, index + 1, callback);
+
+                    } catch (Exception e) {
+                        Log.e(TAG, "pushPending - Error removing a pushed change", e);
+                        finishRun(callback, null, "Failed to update the outbox");
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                Log.w(TAG, "pushPending - network error for user " + change.getUserId(), t);
+                finishRun(callback, null, "Network error while pushing changes");
+            }
+        });
+    }
+
+    /**
+     * Ends the current push run, reports its result and starts another run if one was requested in the meantime.
+     *
+     * @param callback     The callback of the run, or null.
+     * @param pushedCount  The number of pushed changes, or null if the run failed.
+     * @param errorMessage The error message if the run failed, or null.
+     */
+    private void finishRun(UserRepository.Callback<Integer> callback, Integer pushedCount, String errorMessage) {
+        pushing.set(false);
+        if (callback != null) {
+            if (errorMessage == null) {
+                callback.onResult(pushedCount);
+            } else {
+                callback.onError(errorMessage);
+            }
+        }
+
+        // Only rerun after a successful run, a failed run is retried by the next change or the next app start
+        if (errorMessage == null && pushRequested.get()) {
+            pushPending();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.reqresapi.model.repository;
+
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import com.example.reqresapi.model.models.UserResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight loader for API pages.
+ * A request for a page that is already in flight joins the running request instead of sending another one,
+ * and once the total number of pages is known, requests past the last page are answered with an empty page
+ * without touching the network. Suppressed requests are counted so the effect can be checked in the logs.
+ * A caller can detach from its request; once no caller waits for a page anymore, its HTTP call and pending
+ * retries are cancelled.
+ */
+public class PageLoader {
+
+    private static final String TAG = "PageLoader";
+
+    private final Fetcher fetcher;
+    private final Map<Integer, PageRequest> inFlight = new HashMap<>(); // Guarded by itself
+    private volatile int totalPages;    // Total number of pages reported by the API, 0 while unknown
+
+    private final AtomicLong startedRequests = new AtomicLong();
+    private final AtomicLong joinedRequests = new AtomicLong();
+    private final AtomicLong pastEndRequests = new AtomicLong();
+
+    /**
+     * Sends the API request for a page.
+     */
+    interface Fetcher {
+        void fetch(int page, CancellationSignal signal, UserRepository.Callback<UserResponse> callback);
+    }
+
+    /**
+     * Creates a page loader that fetches pages with the given fetcher.
+     *
+     * @param fetcher The fetcher sending the API request for a page, with retries, until its signal is cancelled.
+     */
+    PageLoader(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Loads a page, joining a request for the same page that is already in flight.
+     *
+     * @param page     The page number to load.
+     * @param callback The callback to handle the page response or error.
+     * @return A task that detaches the callback from the request, it is not called afterwards.
+     */
+    public Runnable load(int page, UserRepository.Callback<UserResponse> callback) {
+        int knownTotalPages = totalPages;
+        if (knownTotalPages > 0 && page > knownTotalPages) {
+            // The API has no more data, answer with an empty page instead of sending a request
+            pastEndRequests.incrementAndGet();
+            Log.d(TAG, TAG + " load - page " + page + " is past the last page " + knownTotalPages);
+            callback.onResult(emptyPage(page, knownTotalPages));
+            return () -> { };
+        }
+
+        PageRequest request;
+        synchronized (inFlight) {
+            request = inFlight.get(page);
+            if (request != null) {
+                joinedRequests.incrementAndGet();
+                request.waiting.add(callback);
+                PageRequest joined = request;
+                return () -> detach(page, joined, callback);
+            }
+            request = new PageRequest();
+            request.waiting.add(callback);
+            inFlight.put(page, request);
+        }
+
+        startedRequests.incrementAndGet();
+        PageRequest started = request;
+        fetcher.fetch(page, started.signal, new UserRepository.Callback<UserResponse>() {
+            @Override
+            public void onResult(UserResponse response) {
+                if (response.getTotalPages() > 0) {
+                    totalPages = response.getTotalPages();
+                }
+                for (UserRepository.Callback<UserResponse> waiting : finish(page, started)) {
+                    waiting.onResult(response);
+                }
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                for (UserRepository.Callback<UserResponse> waiting : finish(page, started)) {
+                    waiting.onError(errorMessage);
+                }
+            }
+        });
+        return () -> detach(page, started, callback);
+    }
+
+    /**
+     * @return A snapshot of the request counters.
+     */
+    Stats getStats() {
+        return new Stats(startedRequests.get(), joinedRequests.get(), pastEndRequests.get(), totalPages);
+    }
+
+    /**
+     * Ends the request for a page and returns every callback still waiting for it.
+     *
+     * @param page    The page whose request finished.
+     * @param request The request that finished.
+     * @return The callbacks of the request and of every request that joined it.
+     */
+    private List<UserRepository.Callback<UserResponse>> finish(int page, PageRequest request) {
+        synchronized (inFlight) {
+            if (inFlight.get(page) == request) {
+                inFlight.remove(page);
+            }
+            List<UserRepository.Callback<UserResponse>> waiting = new ArrayList<>(request.waiting);
+            request.waiting.clear();
+            return waiting;
+        }
+    }
+
+    /**
+     * Removes a callback from a page request, and cancels the request once nobody waits for it.
+     *
+     * @param page     The page of the request.
+     * @param request  The request the callback waits for.
+     * @param callback The callback to remove.
+     */
+    private void detach(int page, PageRequest request, UserRepository.Callback<UserResponse> callback) {
+        synchronized (inFlight) {
+            if (!request.waiting.remove(callback) || !request.waiting.isEmpty()) {
+                return;
+            }
+            if (inFlight.get(page) == request) {
+                inFlight.remove(page);
+            }
+        }
+        Log.d(TAG, TAG + " load - page " + page + " is no longer needed, cancelling its request");
+        request.signal.cancel();
+    }
+
+    private static UserResponse emptyPage(int page, int totalPages) {
+        UserResponse response = new UserResponse();
+        response.setPage(page);
+        response.setTotalPages(totalPages);
+        response.setData(Collections.emptyList());
+        return response;
+    }
+
+    /**
+     * An API request for a page, with the callbacks waiting for it.
+     */
+    private static class PageRequest {
+
+        final List<UserRepository.Callback<UserResponse>> waiting = new ArrayList<>();  // Guarded by inFlight
+        final CancellationSignal signal = new CancellationSignal();     // Cancels the HTTP call and pending retries
+    }
+
+    /**
+     * Snapshot of the page request counters.
+     */
+    public static class Stats {
+
+        public final long startedRequests;  // Requests sent to the API
+        public final long joinedRequests;   // Requests suppressed because the same page was already in flight
+        public final long pastEndRequests;  // Requests suppressed because the page is past the last page
+        public final int totalPages;        // Total number of pages reported by the API, 0 while unknown
+
+        Stats(long startedRequests, long joinedRequests, long pastEndRequests, int totalPages) {
+            this.startedRequests = startedRequests;
+            this.joinedRequests = joinedRequests;
+            this.pastEndRequests = pastEndRequests;
+            this.totalPages = totalPages;
+        }
+
+        @Override
+        public String toString() {
+            return "page-loader - started: " + startedRequests + ", joined: " + joinedRequests
+                    + ", past end: " + pastEndRequests + ", total pages: " + totalPages;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.reqresapi.model.repository;
+
+/**
+ * Failure of a repository operation. The message is meant for the user, as with {@link UserRepository.Callback#onError}.
+ */
+public class RepositoryException extends RuntimeException {
+
+    public RepositoryException(String message) {
+        super(message);
+    }
+
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
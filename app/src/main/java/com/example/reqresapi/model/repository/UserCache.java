@@ -0,0 +1,136 @@
+package com.example.reqresapi.model.repository;
+
+import androidx.collection.LruCache;
+
+import com.example.reqresapi.model.models.User;
+
+/**
+ * Process-wide, size-bounded LRU cache of users keyed by their ID, sitting in front of {@code UserDao.getUserById}.
+ * The cache is write-through: every repository mutation updates or removes the cached user after it has been written.
+ * Hit, miss and eviction counters are exposed through {@link #getStats()} to size the cache from real usage.
+ * Users are mutable, so the cache stores and returns copies; editing a returned user never changes the cache.
+ */
+public class UserCache {
+
+    private static final int MAX_SIZE_BYTES = 256 * 1024;  // Upper bound for the estimated memory held by cached users
+    private static final int USER_OVERHEAD_BYTES = 96;      // Object headers of a user and its strings, plus the cache entry
+
+    private static volatile UserCache instance;
+
+    private final LruCache<Integer, User> cache;
+
+    private UserCache() {
+        this(MAX_SIZE_BYTES);
+    }
+
+    /**
+     * Creates a cache with the given size bound, for example a small one to test eviction.
+     *
+     * @param maxSizeBytes Upper bound for the estimated memory held by cached users.
+     */
+    UserCache(int maxSizeBytes) {
+        this.cache = new LruCache<Integer, User>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(Integer userId, User user) {
+                return estimateSize(user);
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide user cache, creating it on first use.
+     *
+     * @return The shared UserCache instance.
+     */
+    public static UserCache getInstance() {
+        if (instance == null) {
+            synchronized (UserCache.class) {
+                if (instance == null) {
+                    instance = new UserCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param userId The ID of the user.
+     * @return A copy of the cached user, or null if the user is not cached.
+     */
+    public User get(int userId) {
+        User user = cache.get(userId);
+        return user != null ? copyOf(user) : null;
+    }
+
+    /**
+     * Caches the current state of a user, replacing any cached state of the same user.
+     *
+     * @param user The user as it is stored in the database.
+     */
+    public void put(User user) {
+        cache.put(user.getId(), copyOf(user));
+    }
+
+    /**
+     * Removes a user from the cache, for example after it was deleted.
+     *
+     * @param userId The ID of the user.
+     */
+    public void remove(int userId) {
+        cache.remove(userId);
+    }
+
+    /**
+     * @return A snapshot of the cache counters.
+     */
+    public Stats getStats() {
+        synchronized (cache) {
+            return new Stats(cache.hitCount(), cache.missCount(), cache.evictionCount(), cache.size(), cache.maxSize());
+        }
+    }
+
+    /**
+     * Estimates the memory held by a cached user. Strings are counted at two bytes per character.
+     *
+     * @param user The user to measure.
+     * @return The estimated size in bytes.
+     */
+    static int estimateSize(User user) {
+        return USER_OVERHEAD_BYTES + 2 * (length(user.getFirst_name()) + length(user.getLast_name())
+                + length(user.getEmail()) + length(user.getAvatar()));
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getEmail(), user.getFirst_name(), user.getLast_name(), user.getAvatar());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     */
+    public static class Stats {
+
+        public final int hits;          // Lookups answered from the cache
+        public final int misses;        // Lookups that had to go to the database
+        public final int evictions;     // Users dropped to stay within the size bound
+        public final int sizeBytes;     // Estimated memory currently held
+        public final int maxSizeBytes;  // Size bound of the cache
+
+        Stats(int hits, int misses, int evictions, int sizeBytes, int maxSizeBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.sizeBytes = sizeBytes;
+            this.maxSizeBytes = maxSizeBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "user-cache - hits: " + hits + ", misses: " + misses + ", evictions: " + evictions
+                    + ", size: " + sizeBytes + "/" + maxSizeBytes + " bytes";
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.reqresapi.model.repository;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.IdSequence;
+
+import java.util.BitSet;
+
+/**
+ * Process-wide in-memory set of the user IDs stored in the local database, used to skip known users during a sync
+ * without reading the database. IDs are kept in bit sets, about one bit per ID: one set for the dense server IDs
+ * and one for locally added IDs, offset by {@link IdSequence#LOCAL_ID_BASE} so they do not inflate the first set.
+ * The index is loaded once on the writer lane and then updated by every insert and delete, which also run there.
+ */
+public class UserIdIndex {
+
+    private static final String TAG = "UserIdIndex";
+
+    private static volatile UserIdIndex instance;
+
+    private final BitSet serverIds = new BitSet();  // IDs below LOCAL_ID_BASE
+    private final BitSet localIds = new BitSet();   // IDs from LOCAL_ID_BASE on, stored as id - LOCAL_ID_BASE
+    private boolean loadRequested;                  // Guarded by this
+    private volatile boolean loaded;                // Set once the index holds every stored ID
+
+    UserIdIndex() {
+    }
+
+    /**
+     * Returns the process-wide ID index, creating it on first use.
+     *
+     * @return The shared UserIdIndex instance.
+     */
+    public static UserIdIndex getInstance() {
+        if (instance == null) {
+            synchronized (UserIdIndex.class) {
+                if (instance == null) {
+                    instance = new UserIdIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Loads every stored user ID into the index, unless a load has already been requested.
+     * The load runs on the writer lane, so no insert or delete can slip in between the read and the index becoming live.
+     *
+     * @param db           The database to read the IDs from.
+     * @param dbDispatcher The dispatcher whose writer lane runs the load.
+     */
+    public void ensureLoaded(AppDatabase db, DbDispatcher dbDispatcher) {
+        synchronized (this) {
+            if (loadRequested) {
+                return;
+            }
+            loadRequested = true;
+        }
+
+        dbDispatcher.executeWrite(() -> {
+            // Read the IDs straight from the cursor to avoid boxing every ID into an Integer
+            try (Cursor cursor = db.query("SELECT id FROM users", null)) {
+                synchronized (this) {
+                    while (cursor.moveToNext()) {
+                        add(cursor.getInt(0));
+                    }
+                }
+                markLoaded();
+                Log.d(TAG, TAG + " loaded - " + cursor.getCount() + " IDs");
+
+            } catch (Exception e) {
+                Log.e(TAG, "ensureLoaded - Error loading user IDs", e);
+                synchronized (this) {
+                    loadRequested = false;  // Allow the next repository to try again
+                }
+            }
+        });
+    }
+
+    /**
+     * Makes the index answer lookups, once it holds every stored ID.
+     */
+    void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * @return true once the index holds every stored ID, false while it is still loading.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param userId The ID of the user.
+     * @return true if the user is stored in the local database. Always false while the index is not loaded.
+     */
+    public synchronized boolean contains(int userId) {
+        if (!loaded || userId < 0) {
+            return false;
+        }
+        return userId < IdSequence.LOCAL_ID_BASE
+                ? serverIds.get(userId)
+                : localIds.get(userId - IdSequence.LOCAL_ID_BASE);
+    }
+
+    /**
+     * Records that a user has been inserted.
+     *
+     * @param userId The ID of the inserted user.
+     */
+    public synchronized void add(int userId) {
+        if (userId < 0) {
+            return;     // Not representable in a bit set, such IDs are simply never reported as known
+        }
+        if (userId < IdSequence.LOCAL_ID_BASE) {
+            serverIds.set(userId);
+        } else {
+            localIds.set(userId - IdSequence.LOCAL_ID_BASE);
+        }
+    }
+
+    /**
+     * Records that a user has been deleted.
+     *
+     * @param userId The ID of the deleted user.
+     */
+    public synchronized void remove(int userId) {
+        if (userId < 0) {
+            return;
+        }
+        if (userId < IdSequence.LOCAL_ID_BASE) {
+            serverIds.clear(userId);
+        } else {
+            localIds.clear(userId - IdSequence.LOCAL_ID_BASE);
+        }
+    }
+}
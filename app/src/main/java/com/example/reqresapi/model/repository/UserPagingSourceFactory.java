@@ -0,0 +1,54 @@
+package com.example.reqresapi.model.repository;
+
+import androidx.paging.PagingSource;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.SearchQuery;
+import com.example.reqresapi.model.models.User;
+
+import kotlin.jvm.functions.Function0;
+
+/**
+ * Creates the PagingSource of the user list: all users, or the users matching the current search.
+ * Changing the search invalidates the current PagingSource, so the Pager reloads with the new query while
+ * its RemoteMediator is left alone. Loads of the invalidated source are cancelled, so stale results are never shown.
+ * Every user list owns its factory, created through {@link UserRepository#createUserPagingSourceFactory}.
+ */
+public class UserPagingSourceFactory implements Function0<PagingSource<Integer, User>> {
+
+    private final AppDatabase db;
+    private volatile String ftsMatch = "";      // MATCH expression of the current search, empty for all users
+    private volatile PagingSource<Integer, User> currentSource;
+
+    UserPagingSourceFactory(AppDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public PagingSource<Integer, User> invoke() {
+        String match = ftsMatch;
+        PagingSource<Integer, User> source = match.isEmpty()
+                ? db.userDao().getUsersPagingSource()
+                : db.userDao().searchUsersPagingSource(match);
+        currentSource = source;
+        return source;
+    }
+
+    /**
+     * Sets the search text and reloads the list if the resulting query changed.
+     *
+     * @param text The text typed by the user, empty to show all users.
+     */
+    public void setSearchText(String text) {
+        String match = SearchQuery.toFtsMatch(text);
+        if (match.equals(ftsMatch)) {
+            return;
+        }
+
+        ftsMatch = match;
+        PagingSource<Integer, User> source = currentSource;
+        if (source != null) {
+            source.invalidate();
+        }
+    }
+}
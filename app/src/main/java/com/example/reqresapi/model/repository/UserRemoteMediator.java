@@ -0,0 +1,159 @@
+package com.example.reqresapi.model.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.paging.ListenableFutureRemoteMediator;
+import androidx.paging.LoadType;
+import androidx.paging.PagingState;
+
+import com.example.reqresapi.model.models.User;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RemoteMediator that pages the users from the API into the local database.
+ * A refresh loads page 1, and every append loads the next page named by the users remote key, which is stored in the
+ * same transaction as the page itself. Pagination ends once the last page reported by the API has been stored.
+ * The Room PagingSource is invalidated by every stored page, so new users show up as soon as their page is stored.
+ * When users are already stored, the initial refresh is skipped so they are shown without waiting for the network:
+ * the stored pages are revalidated in the background instead, see {@link #revalidate}.
+ */
+public class UserRemoteMediator extends ListenableFutureRemoteMediator<Integer, User> {
+
+    private static final String TAG = "UserRemoteMediator";
+
+    private final UserRepository userRepository;
+    private final Listener syncListener;
+    private final AtomicInteger syncedNewUsers = new AtomicInteger();  // New users stored since the last refresh
+    private final Executor direct = MoreExecutors.directExecutor(); // Completes futures on the thread that finished the work
+
+    /**
+     * Listener notified about the progress of the API sync of the mediator.
+     */
+    public interface Listener {
+        void onPageStored(int page, int newUsersCount);
+        void onComplete(int totalPages, int totalNewUsers);
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Creates the mediator.
+     *
+     * @param userRepository The repository used to fetch the API pages and to store them in the database.
+     * @param syncListener   The listener notified about every stored page and once the last page is stored.
+     */
+    UserRemoteMediator(UserRepository userRepository, Listener syncListener) {
+        this.userRepository = userRepository;
+        this.syncListener = syncListener;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<InitializeAction> initializeFuture() {
+        SettableFuture<InitializeAction> action = SettableFuture.create();
+        userRepository.countServerUsersAsync(direct).whenComplete((storedUsers, error) -> {
+            if (error == null && storedUsers > 0) {
+                // Show the stored users right away and revalidate them in the background
+                Log.d(TAG, TAG + " initialize - " + storedUsers + " stored users, revalidating");
+                action.set(InitializeAction.SKIP_INITIAL_REFRESH);
+                revalidate();
+            } else {
+                // Nothing to show yet, load page 1 before showing the list
+                action.set(InitializeAction.LAUNCH_INITIAL_REFRESH);
+            }
+        });
+        return action;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<MediatorResult> loadFuture(@NonNull LoadType loadType, @NonNull PagingState<Integer, User> state) {
+        CompletableFuture<Integer> nextPage;
+        switch (loadType) {
+            case REFRESH:
+                syncedNewUsers.set(0);
+                nextPage = CompletableFuture.completedFuture(1);
+                break;
+            case APPEND:
+                nextPage = userRepository.getNextUserPageAsync(direct);
+                break;
+            default:
+                // The list is ordered by ID and starts at page 1, so there is never anything to prepend
+                return Futures.immediateFuture(new MediatorResult.Success(true));
+        }
+
+        SettableFuture<MediatorResult> result = SettableFuture.create();
+        nextPage.thenCompose(page -> {
+            if (page == null) {
+                return CompletableFuture.<MediatorResult>completedFuture(new MediatorResult.Success(true)); // Last page already stored
+            }
+            Log.d(TAG, TAG + " " + loadType + " - loading page " + page);
+            return userRepository.fetchUserPageAsync(page, direct).thenCompose(response ->
+                    userRepository.storeUserPageAsync(page, response, direct).<MediatorResult>thenApply(newUsersCount -> {
+                        syncListener.onPageStored(page, newUsersCount);
+                        int totalNewUsers = syncedNewUsers.addAndGet(newUsersCount);
+                        boolean endOfPaginationReached = page >= response.getTotalPages();
+                        if (endOfPaginationReached) {
+                            syncListener.onComplete(Math.max(1, response.getTotalPages()), totalNewUsers);
+                        }
+                        return new MediatorResult.Success(endOfPaginationReached);
+                    }));
+        }).whenComplete((mediatorResult, error) -> {
+            if (error == null) {
+                result.set(mediatorResult);
+            } else {
+                String errorMessage = UserRepository.errorMessage(error);
+                syncListener.onError(errorMessage);
+                result.set(new MediatorResult.Error(new IOException(errorMessage)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Revalidates the stored users against the API, starting with page 1. Each page is compared with the stored
+     * rows and only new or changed users are written, so an unchanged page writes nothing and the shown list is
+     * not reloaded. Users changed on this device keep the local change.
+     * The following page is only checked while the previous one had differences, and the remote key is left alone,
+     * appends continue after the last page that was stored.
+     */
+    private void revalidate() {
+        revalidatePage(1, 0);
+    }
+
+    /**
+     * Revalidates one page, then moves on to the next page if this one had differences.
+     *
+     * @param page         The page to revalidate.
+     * @param changedUsers The number of users added or updated by the previous pages of this revalidation.
+     */
+    private void revalidatePage(int page, int changedUsers) {
+        userRepository.fetchUserPageAsync(page, direct).thenCompose(response -> {
+            List<User> users = response.getData() != null ? response.getData() : Collections.<User>emptyList();
+            return userRepository.revalidateUsersAsync(users, direct).thenApply(pageChangedUsers -> {
+                syncListener.onPageStored(page, pageChangedUsers);
+                if (pageChangedUsers > 0 && page < response.getTotalPages()) {
+                    revalidatePage(page + 1, changedUsers + pageChangedUsers);
+                } else {
+                    Log.d(TAG, TAG + " revalidate - done after page " + page);
+                    syncListener.onComplete(page, changedUsers + pageChangedUsers);
+                }
+                return response;
+            });
+        }).whenComplete((response, error) -> {
+            if (error != null) {
+                syncListener.onError(UserRepository.errorMessage(error));
+            }
+        });
+    }
+}
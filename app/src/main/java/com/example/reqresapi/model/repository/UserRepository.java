@@ -1,21 +1,34 @@
 package com.example.reqresapi.model.repository;
 import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
 import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.RemoteKey;
 import com.example.reqresapi.model.models.User;
 import com.example.reqresapi.model.models.UserResponse;
 import com.example.reqresapi.model.network.ApiService;
 import android.util.Log;
 import android.widget.Toast;
 
-import androidx.room.Room;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
 
 import com.example.reqresapi.model.network.RetrofitClient;
+import com.example.reqresapi.model.network.RetryScheduler;
 import com.example.reqresapi.view.MainActivity;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import retrofit2.Call;
 
@@ -24,21 +37,37 @@ public class UserRepository {
     private static final String TAG = "UserRepository";
     private final AppDatabase db;
     private final ApiService apiService;
-    private final ExecutorService executorService;
+    private final DbDispatcher dbDispatcher;
+    private final PageLoader pageLoader;
+    private final RetryScheduler retryScheduler;
+    private final UserWriteQueue userWriteQueue;
+    private final UserCache userCache;
+    private final UserIdIndex userIdIndex;
+    private final AvatarImporter avatarImporter;
 
     private static final int MAX_RETRIES = 3; // Number of retry attempts
-    private static final int RETRY_DELAY_MS = 2000; // Delay between retries
+    private static final int RETRY_DELAY_MS = 2000; // Base delay of the exponential backoff between retries
+    private static final int PAGE_SIZE = 20; // Number of users loaded from the local database per page
+    private static final Executor DIRECT = MoreExecutors.directExecutor(); // Completes futures on the thread that finished the work
 
     /**
-     * Initializes the UserRepository, setting up the database connection, API service, and executor service.
+     * Initializes the UserRepository, setting up the database connection, API service, and database dispatcher.
      *
      * @param context The context used to initialize the database and other components.
      */
     public UserRepository(Context context) {
-        // Initialize the Room database with the application context and the specified database name
-        this.db = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, "user-database").build();
-        this.apiService = RetrofitClient.getApiService();   // Initialize the Retrofit API service for network operations
-        this.executorService = Executors.newSingleThreadExecutor(); // Initialize a single-threaded executor service for handling background tasks
+        // Use the process-wide Room database, shared by every screen
+        this.db = AppDatabase.getInstance(context);
+        this.apiService = RetrofitClient.getApiService(context);   // Shared Retrofit API service for network operations
+        this.dbDispatcher = DbDispatcher.getInstance(); // Shared writer lane plus a pool of concurrent readers for database work
+        this.retryScheduler = RetryScheduler.getInstance();   // Shared scheduler for delayed API retries
+        // Single-flight loader that joins duplicate page requests and stops at the last page
+        this.pageLoader = new PageLoader((page, signal, callback) -> fetchUsersWithRetry(page, MAX_RETRIES, signal, callback));
+        this.userWriteQueue = UserWriteQueue.getInstance(context);  // Shared queue coalescing edits into batched writes and the outbox
+        this.userCache = UserCache.getInstance();   // Shared write-through LRU cache of users by ID
+        this.userIdIndex = UserIdIndex.getInstance();   // Shared bit set of stored user IDs, loaded once per process
+        userIdIndex.ensureLoaded(db, dbDispatcher);
+        this.avatarImporter = AvatarImporter.getInstance(context);  // Shared importer writing picked avatars as thumbnails
     }
 
     /**
@@ -48,8 +77,78 @@ public class UserRepository {
      * @param callback The callback to handle the result or error of the operation.
      */
     public void fetchUsersFromAPI(int page, Callback<List<User>> callback) {
-        // Start the API fetch with the maximum number of retries allowed
-        fetchUsersWithRetry(page, MAX_RETRIES, callback);
+        deliver(fetchUsersAsync(page, DIRECT), callback);
+    }
+
+    /**
+     * Fetches users from the API for a specific page with a built-in retry mechanism.
+     *
+     * @param page     The page number to fetch users from the API.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the users of the page.
+     */
+    public CompletableFuture<List<User>> fetchUsersAsync(int page, Executor executor) {
+        // Fetch the full page response and pass on only the list of users
+        CompletableFuture<UserResponse> pageResponse = fetchUserPageAsync(page, executor);
+        return CancellationScope.linkCancellation(pageResponse.thenApply(UserResponse::getData), pageResponse);
+    }
+
+    /**
+     * Fetches a full page response from the API, including pagination information, with a built-in retry mechanism.
+     * A request for a page that is already in flight joins it, and pages past the last page are answered with
+     * an empty page without a request.
+     *
+     * @param page     The page number to fetch from the API.
+     * @param callback The callback to handle the page response or error of the operation.
+     */
+    public void fetchUserPageFromAPI(int page, Callback<UserResponse> callback) {
+        deliver(fetchUserPageAsync(page, DIRECT), callback);
+    }
+
+    /**
+     * Fetches a full page response from the API, including pagination information, with a built-in retry mechanism.
+     * Cancelling the future detaches it from the request for the page, which is cancelled once no other caller
+     * waits for it.
+     *
+     * @param page     The page number to fetch from the API.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the page response.
+     */
+    public CompletableFuture<UserResponse> fetchUserPageAsync(int page, Executor executor) {
+        CompletableFuture<UserResponse> future = new CompletableFuture<>();
+        // Go through the single-flight loader, which starts the API fetch with the maximum number of retries allowed
+        Runnable detach = pageLoader.load(page, completing(future, executor));
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                detach.run();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Creates a Pager that loads users from the local database page by page.
+     * The database is kept in sync with the API by a {@link UserRemoteMediator}. Stored users are shown right away,
+     * and the API is revalidated in the background.
+     * The Pager shows the users matching the search of the given factory, see {@link UserPagingSourceFactory#setSearchText}.
+     *
+     * @param pagingSourceFactory The PagingSource factory of the caller, holding the caller's search.
+     * @param syncListener        The listener notified about the progress of every API sync.
+     * @return A Pager over the users table.
+     */
+    public Pager<Integer, User> createUserPager(UserPagingSourceFactory pagingSourceFactory, UserRemoteMediator.Listener syncListener) {
+        PagingConfig config = new PagingConfig(PAGE_SIZE, PAGE_SIZE, false);
+        return new Pager<>(config, null, new UserRemoteMediator(this, syncListener), pagingSourceFactory);
+    }
+
+    /**
+     * Creates a PagingSource factory for a user list, showing all users until a search is set.
+     * Each list owns its factory, so the search of one screen never changes the list of another.
+     *
+     * @return A new PagingSource factory over the users table.
+     */
+    public UserPagingSourceFactory createUserPagingSourceFactory() {
+        return new UserPagingSourceFactory(db);
     }
 
     /**
@@ -60,24 +159,42 @@ public class UserRepository {
      * @param retryCount The remaining number of retries allowed.
      * @param callback   The callback to handle the result or error of the operation.
      */
-    public void fetchUsersWithRetry(int page, int retryCount, Callback<List<User>> callback) {
+    public void fetchUsersWithRetry(int page, int retryCount, Callback<UserResponse> callback) {
+        fetchUsersWithRetry(page, retryCount, new CancellationSignal(), callback);
+    }
+
+    /**
+     * Fetches a page response from the API with a built-in retry mechanism, until the given signal is cancelled.
+     * Cancelling the signal cancels the running call and drops any retry that has not started yet.
+     *
+     * @param page       The page number to fetch users from the API.
+     * @param retryCount The remaining number of retries allowed.
+     * @param signal     The signal that cancels the fetch.
+     * @param callback   The callback to handle the page response or error of the operation.
+     */
+    public void fetchUsersWithRetry(int page, int retryCount, CancellationSignal signal, Callback<UserResponse> callback) {
+        if (signal.isCanceled()) {
+            callback.onError("Request cancelled");
+            return;
+        }
         Log.d(TAG, "Attempt " + (MAX_RETRIES - retryCount + 1) + " to fetch users");
 
-        // Make the API call to fetch users
+        // Make the API call to fetch users, cancelling the signal cancels it
         Call<UserResponse> call = apiService.getUsers(page);
+        signal.setOnCancelListener(call::cancel);
 
         // Handle the API response asynchronously
         call.enqueue(new retrofit2.Callback<UserResponse>() {
             @Override
             public void onResponse(Call<UserResponse> call, retrofit2.Response<UserResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    // Pass the list of users back through the callback if successful
-                    callback.onResult(response.body().getData());
+                    // Pass the page response back through the callback if successful
+                    callback.onResult(response.body());
 
                 } else {
                     // If the response is unsuccessful, retry the API call if retries are left
                     if (retryCount > 0) {
-                        retryFetchUsers(page, retryCount, callback);
+                        retryFetchUsers(call, response, page, retryCount, signal, callback);
 
                     } else {
                         // If no retries are left, return an error message
@@ -88,9 +205,14 @@ public class UserRepository {
 
             @Override
             public void onFailure(Call<UserResponse> call, Throwable t) {
+                if (call.isCanceled()) {
+                    callback.onError("Request cancelled");
+                    return;
+                }
+
                 // If the call fails due to a network error, retry if retries are left
                 if (retryCount > 0) {
-                    retryFetchUsers(page, retryCount, callback);
+                    retryFetchUsers(call, null, page, retryCount, signal, callback);
 
                 } else {
                     // If no retries are left, return a network error message
@@ -102,177 +224,319 @@ public class UserRepository {
 
     /**
      * Schedules a retry of the API call to fetch users after a delay.
+     * The delay uses exponential backoff with full jitter, or the server's Retry-After header on 429/503 responses.
+     * The retry is dropped if the retry budget of the host is exhausted.
      * The method decrements the retry count and attempts to fetch the users again.
      *
+     * @param call       The failed call, used to identify the host.
+     * @param response   The failed response, or null if the call failed without a response.
      * @param page       The page number to fetch users from the API.
      * @param retryCount The remaining number of retries allowed.
+     * @param signal     The signal that cancels the fetch, checked again when the retry starts.
      * @param callback   The callback to handle the result or error of the operation.
      */
-    private void retryFetchUsers(int page, int retryCount, Callback<List<User>> callback) {
-        Log.d(TAG, "Retrying in " + (RETRY_DELAY_MS / 1000) + " seconds...");
-        executorService.execute(() ->
-                fetchUsersWithRetry(page, retryCount - 1, callback));
+    private void retryFetchUsers(Call<UserResponse> call, retrofit2.Response<UserResponse> response, int page,
+                                 int retryCount, CancellationSignal signal, Callback<UserResponse> callback) {
+        String host = call.request().url().host();
+        if (!retryScheduler.tryAcquireRetry(host)) {
+            // Too many retries have been sent to this host recently, give up instead of adding load
+            callback.onError("Retry budget exhausted for " + host);
+            return;
+        }
+
+        long delayMs = retryScheduler.computeDelayMs(RETRY_DELAY_MS, MAX_RETRIES - retryCount, response);
+        Log.d(TAG, "Retrying in " + delayMs + " ms...");
+        // The retry runs on the retry scheduler thread, never on a database thread
+        retryScheduler.schedule(() -> fetchUsersWithRetry(page, retryCount - 1, signal, callback), delayMs);
     }
 
     /**
      * Inserts a list of users into the local database.
      * Only users that do not already exist in the database are added.
-     * The operation is performed asynchronously using an executor service.
+     * Users known to the in-memory ID index are filtered out without reading the database, the rest are
+     * written with a single batched insert inside one transaction, and the count of new users is derived
+     * from the returned row IDs.
      * The result, which is the count of new users added, is returned via the provided callback.
      *
      * @param users    The list of users to be inserted into the local database.
      * @param callback The callback to handle the result or error of the insertion operation.
      */
     public void insertUsersToLocalDB(List<User> users, Callback<Integer> callback) {
+        deliver(insertUsersAsync(users, DIRECT), callback);
+    }
+
+    /**
+     * Inserts a list of users into the local database on the writer lane, see {@link #insertUsersToLocalDB}.
+     *
+     * @param users    The list of users to be inserted into the local database.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the count of new users added.
+     */
+    public CompletableFuture<Integer> insertUsersAsync(List<User> users, Executor executor) {
         Log.d(TAG, TAG + " insertUsers");
-        // Execute the database insertion on a background thread using the executor service
-        executorService.execute(() -> {
-            int newUsersCount = 0;  // Counter for the number of new users added
+        return supplyOnWriter(() -> insertUsers(users), "Failed to store users in local DB", executor);
+    }
 
-            try {
-                for (User user : users) {
-                    User existingUser = db.userDao().getUserById(user.getId());     // Check if the user already exists in the database by ID
-                    if (existingUser == null) {
-                        // Insert the user into the database if they do not already exist
-                        db.userDao().insertUser(user);
-                        Log.d(TAG, TAG + " insertUsers - new user added");
-                        newUsersCount++;        // Increment the counter for each new user added
-                    }
-                }
-                callback.onResult(newUsersCount);   // Return the count of new users added via the callback
+    /**
+     * Stores a page of users fetched from the API together with the paging key of the users list, on the writer lane.
+     * Both are written in one transaction, so the key never points past a page that was not stored.
+     * Only users that do not already exist in the database are added, see {@link #insertUsersToLocalDB}.
+     *
+     * @param page     The page number of the response.
+     * @param response The page response from the API.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the count of new users added.
+     */
+    public CompletableFuture<Integer> storeUserPageAsync(int page, UserResponse response, Executor executor) {
+        List<User> users = response.getData() != null ? response.getData() : Collections.<User>emptyList();
+        Integer nextPage = page < response.getTotalPages() ? page + 1 : null;
+        return supplyOnWriter(() -> db.runInTransaction(() -> {
+            db.userDao().upsertRemoteKey(new RemoteKey(RemoteKey.USERS, nextPage));
+            return insertUsers(users);
+        }), "Failed to store users in local DB", executor);
+    }
 
-            } catch (Exception e) {
-                // Log and handle any exceptions that occur during the insertion process
-                Log.e(TAG, "insertUsersToLocalDB - Error inserting users", e);
-                callback.onError("Failed to store users in local DB");
+    /**
+     * Reads the next API page of the users list, on the reader pool.
+     *
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the next page, 1 if no page has been stored yet, or null once the last page is stored.
+     */
+    public CompletableFuture<Integer> getNextUserPageAsync(Executor executor) {
+        return supplyOnReader(() -> {
+            RemoteKey remoteKey = db.userDao().getRemoteKey(RemoteKey.USERS);
+            return remoteKey != null ? remoteKey.getNextPage() : Integer.valueOf(1);
+        }, "Failed to read the paging key from local DB", executor);
+    }
+
+    /**
+     * Compares a page of users fetched from the API with the stored users and writes only the differences,
+     * on the writer lane, see {@link com.example.reqresapi.model.database.UserDao#revalidateUsers}.
+     * Users changed on this device keep the local change, also after it has been pushed.
+     *
+     * @param users    The users of the page, as returned by the API.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the count of users that were added or updated.
+     */
+    public CompletableFuture<Integer> revalidateUsersAsync(List<User> users, Executor executor) {
+        return supplyOnWriter(() -> {
+            List<User> changedUsers = db.userDao().revalidateUsers(users);
+            for (User user : changedUsers) {
+                userIdIndex.add(user.getId());
+                userCache.put(user);
             }
-        });
+            Log.d(TAG, TAG + " revalidateUsers - " + changedUsers.size() + " of " + users.size() + " users added or updated");
+            return changedUsers.size();
+        }, "Failed to store users in local DB", executor);
+    }
+
+    /**
+     * Inserts the users that are not stored yet, on the writer lane, see {@link #insertUsersToLocalDB}.
+     *
+     * @param users The list of users to be inserted into the local database.
+     * @return The count of new users added.
+     */
+    private int insertUsers(List<User> users) {
+        int newUsersCount = 0;  // Counter for the number of new users added
+
+        // Drop the users that are already stored, the ID index answers this without a database read
+        List<User> unknownUsers = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (!userIdIndex.contains(user.getId())) {
+                unknownUsers.add(user);
+            }
+        }
+
+        // Insert the remaining users in one transaction, existing IDs are still ignored and reported as -1
+        List<Long> rowIds = unknownUsers.isEmpty()
+                ? Collections.emptyList()
+                : db.userDao().insertUsersIfAbsent(unknownUsers);
+        for (int i = 0; i < rowIds.size(); i++) {
+            if (rowIds.get(i) != -1) {
+                newUsersCount++;        // Increment the counter for each new user added
+                userIdIndex.add(unknownUsers.get(i).getId());
+                userCache.put(unknownUsers.get(i));
+            }
+        }
+        Log.d(TAG, TAG + " insertUsers - " + newUsersCount + " new users added");
+        return newUsersCount;
     }
 
     /**
-     * Fetches all users from the local database asynchronously using an executor service.
+     * Counts the stored users that came from the API, on the reader pool. Locally added users are not counted.
+     *
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the number of stored API users.
+     */
+    public CompletableFuture<Integer> countServerUsersAsync(Executor executor) {
+        return supplyOnReader(() -> db.userDao().countServerUsers(IdSequence.LOCAL_ID_BASE),
+                "Failed to count users in local DB", executor);
+    }
+
+    /**
+     * Fetches all users from the local database asynchronously on the database dispatcher.
      * The list of users is returned via the provided callback.
      * If an error occurs during the operation, an error message is passed back through the callback.
      *
      * @param callback The callback to handle the result or error of the fetch operation.
      */
     public void fetchAllUsersFromLocalDB(Callback<List<User>> callback) {
-        Log.d(TAG, TAG + " fetchAllUsersFromLocalDB");
-        // Execute the database fetch operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                // Retrieve the list of all users from the database and pass to callback
-                List<User> users = db.userDao().getAllUsers();
-                callback.onResult(users);
+        deliver(fetchAllUsersAsync(DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                Log.e(TAG, "fetchAllUsersFromLocalDB - Error fetching users", e);
-                callback.onError("Failed to fetch users from local DB");
-            }
-        });
+    /**
+     * Fetches all users from the local database on the reader pool.
+     *
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the list of all users.
+     */
+    public CompletableFuture<List<User>> fetchAllUsersAsync(Executor executor) {
+        Log.d(TAG, TAG + " fetchAllUsersFromLocalDB");
+        return supplyOnReader(() -> db.userDao().getAllUsers(), "Failed to fetch users from local DB", executor);
     }
 
     /**
-     * Updates an existing user's details in the local database asynchronously using an executor service.
+     * Updates an existing user's details in the local database through the write queue.
+     * Rapid edits of the same user are merged and written in one transaction per batch window,
+     * and the change is recorded in the outbox to be pushed to the server. The user's avatar is not written,
+     * see {@link #updateUserAvatar}, and an update queued after a delete of the same user is rejected.
      * The result of the update operation is returned via the provided callback.
      *
      * @param user     The user object containing the updated details.
      * @param callback The callback to handle the result or error of the update operation.
      */
     public void updateUserInDB(User user, Callback<Integer> callback) {
-        // Execute the database update operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, TAG + " - updateUserInDB - id : " + user.getId());
-                db.userDao().updateUser(user.getId(), user.getFirst_name(), user.getLast_name(), user.getEmail(), user.getAvatar());
-                callback.onResult(0); // Assuming 0 indicates success
+        deliver(updateUserAsync(user, DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                callback.onError("Error updating user");
-            }
-        });
+    /**
+     * Updates an existing user's details through the write queue, see {@link #updateUserInDB}.
+     *
+     * @param user     The user object containing the updated details.
+     * @param executor The executor the returned future is completed on.
+     * @return A future completed with 0 once the batch holding the update has been written.
+     */
+    public CompletableFuture<Integer> updateUserAsync(User user, Executor executor) {
+        Log.d(TAG, TAG + " - updateUserInDB - id : " + user.getId());
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        userWriteQueue.enqueueUpdate(user, completing(future, executor));
+        return future;
     }
 
     /**
-     * Deletes an existing user from the local database asynchronously using an executor service.
+     * Deletes an existing user from the local database through the write queue.
+     * A pending change of the same user is dropped, and the delete is recorded in the outbox to be pushed to the server.
      * The result of the deletion operation is returned via the provided callback.
      *
      * @param user     The user object representing the user to be deleted.
      * @param callback The callback to handle the result or error of the deletion operation.
      */
     public void deleteUserFromDB(User user, Callback<Integer> callback) {
-        // Execute the database deletion operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, TAG + " - deleteUserFromDB - id : " + user.getId());
-
-                // Delete the user from the database using the user's ID, pass success indicator (0) to callback
-                db.userDao().deleteUser(user.getId());
-                callback.onResult(0);
+        deliver(deleteUserAsync(user, DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                callback.onError("Error : failed to delete user");
-            }
-        });
+    /**
+     * Deletes an existing user through the write queue, see {@link #deleteUserFromDB}.
+     *
+     * @param user     The user object representing the user to be deleted.
+     * @param executor The executor the returned future is completed on.
+     * @return A future completed with 0 once the batch holding the delete has been written.
+     */
+    public CompletableFuture<Integer> deleteUserAsync(User user, Executor executor) {
+        Log.d(TAG, TAG + " - deleteUserFromDB - id : " + user.getId());
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        userWriteQueue.enqueueDelete(user.getId(), completing(future, executor));
+        return future;
     }
 
     /**
-     * Adds a new user to the local database asynchronously using an executor service.
+     * Adds a new user to the local database asynchronously on the database dispatcher.
      * The result of the addition operation is returned via the provided callback.
      *
      * @param user     The user object representing the user to be added.
      * @param callback The callback to handle the result or error of the addition operation.
      */
     public void addUserToDB(User user, Callback<Integer> callback) {
-        // Execute the database insertion operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, TAG + " adding user");
-                // Insert the user into the database, pass success indicator (0)
-                db.userDao().insertUser(user);
-                callback.onResult(0);
+        deliver(addUserAsync(user, DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                callback.onError("Error : failed to add user");
+    /**
+     * Adds a new user to the local database on the writer lane, replacing a user with the same ID.
+     *
+     * @param user     The user object representing the user to be added.
+     * @param executor The executor the returned future is completed on.
+     * @return A future completed with 0 once the user has been added.
+     */
+    public CompletableFuture<Integer> addUserAsync(User user, Executor executor) {
+        return supplyOnWriter(() -> {
+            Log.d(TAG, TAG + " adding user");
+            db.userDao().insertUser(user);
+            userIdIndex.add(user.getId());
+            userCache.put(user);
+            return 0;   // Success indicator
+        }, "Error : failed to add user", executor);
+    }
+
+    /**
+     * Adds a new user to the local database with the next local ID, allocated from the ID sequence table.
+     * Allocation and insertion run in one transaction on the writer lane, so concurrent adds never collide.
+     * A user whose email is already in use is rejected, checked through the email index.
+     * The assigned ID is returned via the provided callback.
+     *
+     * @param user     The user object representing the user to be added, its ID is overwritten.
+     * @param callback The callback to handle the assigned ID or error of the addition operation.
+     */
+    public void addUserWithNextId(User user, Callback<Integer> callback) {
+        deliver(addUserWithNextIdAsync(user, DIRECT), callback);
+    }
+
+    /**
+     * Adds a new user with the next local ID on the writer lane, see {@link #addUserWithNextId}.
+     *
+     * @param user     The user object representing the user to be added, its ID is overwritten.
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the assigned ID.
+     */
+    public CompletableFuture<Integer> addUserWithNextIdAsync(User user, Executor executor) {
+        return supplyOnWriter(() -> {
+            // The check and the insert run on the single writer lane, so no other add can slip in between
+            if (user.getEmail() != null && db.userDao().getUserByEmail(user.getEmail()) != null) {
+                throw new RepositoryException("Error : a user with this email already exists");
             }
-        });
+
+            int newId = db.userDao().insertUserWithNextId(user);
+            userIdIndex.add(newId);
+            userCache.put(user);
+            Log.d(TAG, TAG + " adding user - id : " + newId);
+            return newId;
+        }, "Error : failed to add user", executor);
     }
 
     /**
-     * Determines the next available user ID by examining the existing IDs in the local database.
+     * Determines the ID the next locally added user will receive, using the ID sequence table.
+     * This is a constant-time lookup and does not reserve the ID, use {@link #addUserWithNextId} to add a user.
      * The result is returned via the provided callback.
-     * The method operates asynchronously using an executor service.
+     * The method operates asynchronously on the database reader pool.
      *
      * @param callback The callback to handle the result (next available ID) or any error that occurs during the operation.
      */
     public void getNextAvailableId(UserRepository.Callback<Integer> callback) {
-        // Execute the operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                // Fetch all existing user IDs from the database
-                List<Integer> allIds = db.userDao().getAllUserIds();
-                int nextId = 0;
-
-                // Determine the next available ID by finding the first gap in the sequence of IDs
-                for (int id : allIds) {
-                    if (id == nextId) {
-                        nextId++;
-                    } else {
-                        break;  // A gap is found, so this is the next available ID
-                    }
-                }
-                // Pass the next available ID back through the callback
-                callback.onResult(nextId);
+        deliver(getNextAvailableIdAsync(DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                // If there was an error, pass the error message to the callback
-                callback.onError("Unable to determine the next available ID");
-            }
-        });
+    /**
+     * Determines the ID the next locally added user will receive on the reader pool, see {@link #getNextAvailableId}.
+     *
+     * @param executor The executor the returned future is completed on.
+     * @return A future of the next available ID.
+     */
+    public CompletableFuture<Integer> getNextAvailableIdAsync(Executor executor) {
+        return supplyOnReader(() -> db.userDao().peekNextUserId(), "Unable to determine the next available ID", executor);
     }
 
     /**
-     * Updates the avatar of a specific user in the local database asynchronously using an executor service.
+     * Updates the avatar of a specific user in the local database through the write queue.
+     * The change is merged with other pending changes of the same user and recorded in the outbox.
      * The result of the update operation is returned via the provided callback.
      *
      * @param userId   The ID of the user whose avatar is to be updated.
@@ -280,48 +544,216 @@ public class UserRepository {
      * @param callback The callback to handle the result or error of the update operation.
      */
     public void updateUserAvatar(int userId, String avatar, Callback<Integer> callback) {
-        // Execute the update operation on a background thread using the executor service
-        executorService.execute(() -> {
-            try {
-                // Update the user's avatar in the database, pass a success indicator (0) to callback
-                db.userDao().updateUserAvatar(userId, avatar);
-                callback.onResult(0);
+        deliver(updateUserAvatarAsync(userId, avatar, DIRECT), callback);
+    }
 
-            } catch (Exception e) {
-                callback.onError("Error updating avatar");
-            }
-        });
+    /**
+     * Updates the avatar of a specific user through the write queue, see {@link #updateUserAvatar}.
+     *
+     * @param userId   The ID of the user whose avatar is to be updated.
+     * @param avatar   The new avatar URL or path to be set for the user.
+     * @param executor The executor the returned future is completed on.
+     * @return A future completed with 0 once the batch holding the change has been written.
+     */
+    public CompletableFuture<Integer> updateUserAvatarAsync(int userId, String avatar, Executor executor) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        userWriteQueue.enqueueAvatar(userId, avatar, completing(future, executor));
+        return future;
+    }
+
+    /**
+     * Imports a picked image as a user's avatar. The image is downsampled once into an app-private WebP thumbnail
+     * on a background thread, and the thumbnail path is stored as the avatar. Older thumbnails of the user are
+     * deleted once the new one is stored. The result of the update operation is returned via the provided callback.
+     *
+     * @param userId   The ID of the user whose avatar is to be updated.
+     * @param uri      The URI of the picked image.
+     * @param callback The callback to handle the result or error of the import and update operation.
+     */
+    public void importUserAvatar(int userId, Uri uri, Callback<Integer> callback) {
+        deliver(importUserAvatarAsync(userId, uri, DIRECT), callback);
     }
 
     /**
-     * Fetches a user from the local database by their ID asynchronously using an executor service.
+     * Imports a picked image as a user's avatar, see {@link #importUserAvatar}.
+     *
+     * @param userId   The ID of the user whose avatar is to be updated.
+     * @param uri      The URI of the picked image.
+     * @param executor The executor the returned future is completed on.
+     * @return A future completed with 0 once the thumbnail path has been stored.
+     */
+    public CompletableFuture<Integer> importUserAvatarAsync(int userId, Uri uri, Executor executor) {
+        CompletableFuture<String> thumbnail = new CompletableFuture<>();
+        avatarImporter.importAvatar(userId, uri, completing(thumbnail, DIRECT));
+        return thumbnail.thenCompose(thumbnailPath -> updateUserAvatarAsync(userId, thumbnailPath, executor)
+                .thenApply(result -> {
+                    avatarImporter.deleteOldThumbnails(userId, thumbnailPath);
+                    return result;
+                }));
+    }
+
+    /**
+     * Fetches a user by their ID. A cached user is returned right away on the calling thread,
+     * otherwise the user is read from the local database on the database dispatcher and cached.
      * The user details are returned via the provided callback.
      *
      * @param userId   The ID of the user to be fetched.
      * @param callback The callback to handle the result (User object) or error of the fetch operation.
      */
     public void fetchUserById(int userId, Callback<User> callback) {
-        // Execute the fetch operation on a background thread using the executor service
-        executorService.execute(() -> {
+        deliver(fetchUserByIdAsync(userId, DIRECT), callback);
+    }
+
+    /**
+     * Fetches a user by their ID, see {@link #fetchUserById}. A cached user completes the future right away.
+     *
+     * @param userId   The ID of the user to be fetched.
+     * @param executor The executor the returned future is completed on when the user is read from the database.
+     * @return A future of the user, failed if the user does not exist.
+     */
+    public CompletableFuture<User> fetchUserByIdAsync(int userId, Executor executor) {
+        User cachedUser = userCache.get(userId);
+        if (cachedUser != null) {
+            return CompletableFuture.completedFuture(cachedUser);
+        }
+
+        return supplyOnReader(() -> {
+            // Fetch the user from the database using their ID
+            User user = db.userDao().getUserById(userId);
+            if (user == null) {
+                throw new RepositoryException("User not found with ID: " + userId);
+            }
+            userCache.put(user);
+            return user;
+        }, "Error fetching user by ID: " + userId, executor);
+    }
+
+    /**
+     * Returns the current metrics of the database reader pool, such as queue depth and wait times.
+     *
+     * @return A snapshot of the reader lane metrics.
+     */
+    public DbDispatcher.Metrics getReadMetrics() {
+        return dbDispatcher.getReadMetrics();
+    }
+
+    /**
+     * Returns the current metrics of the serialized database writer lane, such as queue depth and wait times.
+     *
+     * @return A snapshot of the writer lane metrics.
+     */
+    public DbDispatcher.Metrics getWriteMetrics() {
+        return dbDispatcher.getWriteMetrics();
+    }
+
+    /**
+     * Returns the counters of the API page requests, including the requests that were suppressed
+     * because the page was already in flight or past the last page.
+     *
+     * @return A snapshot of the page request counters.
+     */
+    public PageLoader.Stats getPageLoadStats() {
+        return pageLoader.getStats();
+    }
+
+    /**
+     * Returns the current hit, miss and eviction counters of the user cache.
+     *
+     * @return A snapshot of the user cache counters.
+     */
+    public UserCache.Stats getUserCacheStats() {
+        return userCache.getStats();
+    }
+
+
+    /**
+     * Runs a database read on the reader pool, see {@link #supplyOn}. A read whose future is cancelled while it
+     * is still queued is dropped.
+     */
+    private <T> CompletableFuture<T> supplyOnReader(Supplier<T> task, String errorMessage, Executor executor) {
+        return supplyOn(dbDispatcher::executeRead, true, task, errorMessage, executor);
+    }
+
+    /**
+     * Runs a database write on the serialized writer lane, see {@link #supplyOn}. The write runs even if its future
+     * is cancelled, so leaving a screen never loses data the user entered.
+     */
+    private <T> CompletableFuture<T> supplyOnWriter(Supplier<T> task, String errorMessage, Executor executor) {
+        return supplyOn(dbDispatcher::executeWrite, false, task, errorMessage, executor);
+    }
+
+    /**
+     * Runs a database task on the given lane and completes the returned future with its result on the executor.
+     *
+     * @param lane         The dispatcher lane that runs the task.
+     * @param droppable    Whether the task is skipped when its future is cancelled while the task is still queued.
+     * @param task         The database task.
+     * @param errorMessage The message of the failure when the task throws anything but a RepositoryException.
+     * @param executor     The executor the returned future is completed on.
+     * @return A future of the task result.
+     */
+    static <T> CompletableFuture<T> supplyOn(Consumer<Runnable> lane, boolean droppable, Supplier<T> task,
+                                             String errorMessage, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        lane.accept(() -> {
+            if (droppable && future.isCancelled()) {
+                return;     // Cancelled while queued
+            }
+
             try {
-                // Fetch the user from the database using their ID
-                User user = db.userDao().getUserById(userId);
+                T result = task.get();
+                executor.execute(() -> future.complete(result));
 
-                if (user != null) {
-                    // Pass the fetched user back through the callback
-                    callback.onResult(user);
-                } else {
-                    // If the user is not found, pass an error message via the callback
-                    callback.onError("User not found with ID: " + userId);
-                }
+            } catch (RepositoryException e) {
+                executor.execute(() -> future.completeExceptionally(e));
 
             } catch (Exception e) {
-                Log.e(TAG, "fetchUserById - Error fetching user by ID", e);
-                callback.onError("Error fetching user by ID: " + userId);
+                Log.e(TAG, errorMessage, e);
+                executor.execute(() -> future.completeExceptionally(new RepositoryException(errorMessage, e)));
             }
         });
+        return future;
     }
 
+    /**
+     * Creates a callback that completes the given future on the executor, for the callback based components.
+     *
+     * @param future   The future to complete.
+     * @param executor The executor the future is completed on.
+     * @return The callback.
+     */
+    static <T> Callback<T> completing(CompletableFuture<T> future, Executor executor) {
+        return new Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                executor.execute(() -> future.complete(result));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                executor.execute(() -> future.completeExceptionally(new RepositoryException(errorMessage)));
+            }
+        };
+    }
+
+    /**
+     * Passes the outcome of a future to a callback, the adapter behind every callback method.
+     *
+     * @param future   The future of the operation.
+     * @param callback The callback to notify.
+     */
+    static <T> void deliver(CompletableFuture<T> future, Callback<T> callback) {
+        future.whenComplete((result, error) -> CancellationScope.notifyCallback(callback, result, error));
+    }
+
+    /**
+     * @param error The failure of a future, possibly wrapped by a dependent stage.
+     * @return The user-facing message of the failure.
+     */
+    public static String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
 
     public interface Callback<T> {
         void onResult(T result);
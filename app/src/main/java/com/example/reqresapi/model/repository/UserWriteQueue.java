@@ -0,0 +1,302 @@
+package com.example.reqresapi.model.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.reqresapi.model.database.AppDatabase;
+import com.example.reqresapi.model.database.DbDispatcher;
+import com.example.reqresapi.model.models.IdSequence;
+import com.example.reqresapi.model.models.LocalEdit;
+import com.example.reqresapi.model.models.PendingChange;
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.network.RetrofitClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide queue for user updates, avatar changes and deletes.
+ * Writes are coalesced per user ID: a later change to the same user is merged into the pending one, and a delete
+ * replaces it. A change queued after a pending delete of the same user is rejected. Once per batch window all pending writes are applied to the users table in one transaction,
+ * together with the outbox rows that record them for the server. The outbox is then pushed by the {@link OutboxPusher}.
+ */
+public class UserWriteQueue {
+
+    private static final String TAG = "UserWriteQueue";
+    private static final long BATCH_WINDOW_MS = 300; // Time writes are collected before they are flushed together
+    private static final String USER_DELETED = "Error : the user is being deleted";
+
+    private static volatile UserWriteQueue instance;
+
+    private final AppDatabase db;
+    private final DbDispatcher dbDispatcher;
+    private final OutboxPusher outboxPusher;
+    private final UserCache userCache;
+    private final UserIdIndex userIdIndex;
+    private final ScheduledExecutorService flushScheduler;
+    private final Map<Integer, PendingWrite> pendingWrites = new LinkedHashMap<>(); // Guarded by this
+    private boolean flushScheduled;     // Guarded by this
+    private long lastUpdatedAt;         // Only used on the writer lane
+
+    private UserWriteQueue(Context context) {
+        this(AppDatabase.getInstance(context), DbDispatcher.getInstance(),
+                new OutboxPusher(AppDatabase.getInstance(context), RetrofitClient.getApiService(context), DbDispatcher.getInstance()));
+    }
+
+    /**
+     * Creates a write queue over the given database.
+     *
+     * @param db           The database the writes are applied to.
+     * @param dbDispatcher The dispatcher whose writer lane applies the batches.
+     * @param outboxPusher The pusher that sends the recorded changes to the server after every batch.
+     */
+    UserWriteQueue(AppDatabase db, DbDispatcher dbDispatcher, OutboxPusher outboxPusher) {
+        this.db = db;
+        this.dbDispatcher = dbDispatcher;
+        this.outboxPusher = outboxPusher;
+        this.userCache = UserCache.getInstance();
+        this.userIdIndex = UserIdIndex.getInstance();
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-write-queue");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the process-wide write queue, creating it on first use.
+     *
+     * @param context The context used to access the database and the API service.
+     * @return The shared UserWriteQueue instance.
+     */
+    public static UserWriteQueue getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UserWriteQueue.class) {
+                if (instance == null) {
+                    instance = new UserWriteQueue(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queues an update of a user's details, replacing the pending details of the same user.
+     * The avatar of the given user is ignored, so an avatar picked in the same batch window is not overwritten
+     * by a stale copy of the user; avatars are changed through {@link #enqueueAvatar}.
+     *
+     * @param user     The user object containing the updated details.
+     * @param callback The callback invoked once the batch holding the update has been written,
+     *                 or right away with an error if the user is about to be deleted.
+     */
+    public void enqueueUpdate(User user, UserRepository.Callback<Integer> callback) {
+        boolean rejected;
+        synchronized (this) {
+            PendingWrite write = pendingWriteFor(user.getId());
+            rejected = write.delete;    // The user is gone once the batch is written
+            if (!rejected) {
+                write.firstName = user.getFirst_name();
+                write.lastName = user.getLast_name();
+                write.email = user.getEmail();
+                write.callbacks.add(callback);
+            }
+        }
+        if (rejected) {
+            callback.onError(USER_DELETED);
+            return;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Queues an avatar change, replacing a pending avatar change of the same user.
+     *
+     * @param userId   The ID of the user whose avatar is to be updated.
+     * @param avatar   The new avatar URI or path.
+     * @param callback The callback invoked once the batch holding the change has been written,
+     *                 or right away with an error if the user is about to be deleted.
+     */
+    public void enqueueAvatar(int userId, String avatar, UserRepository.Callback<Integer> callback) {
+        boolean rejected;
+        synchronized (this) {
+            PendingWrite write = pendingWriteFor(userId);
+            rejected = write.delete;    // The user is gone once the batch is written
+            if (!rejected) {
+                write.avatar = avatar;
+                write.callbacks.add(callback);
+            }
+        }
+        if (rejected) {
+            callback.onError(USER_DELETED);
+            return;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Queues the deletion of a user. Any pending change of the same user is dropped.
+     *
+     * @param userId   The ID of the user to delete.
+     * @param callback The callback invoked once the batch holding the delete has been written.
+     */
+    public void enqueueDelete(int userId, UserRepository.Callback<Integer> callback) {
+        synchronized (this) {
+            PendingWrite write = pendingWriteFor(userId);
+            write.delete = true;
+            write.firstName = null;
+            write.lastName = null;
+            write.email = null;
+            write.avatar = null;
+            write.callbacks.add(callback);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Pushes the changes left in the outbox, for example by a previous session that ended while offline.
+     */
+    public void pushPending() {
+        outboxPusher.pushPending();
+    }
+
+    /**
+     * Returns the pending write of a user, creating an empty one if the user has none. Must hold the lock.
+     *
+     * @param userId The ID of the user.
+     * @return The pending write of the user.
+     */
+    private PendingWrite pendingWriteFor(int userId) {
+        PendingWrite write = pendingWrites.get(userId);
+        if (write == null) {
+            write = new PendingWrite(userId);
+            pendingWrites.put(userId, write);
+        }
+        return write;
+    }
+
+    /**
+     * Schedules a flush at the end of the current batch window, unless one is already scheduled.
+     */
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        flushScheduler.schedule(this::flush, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes every pending write and applies them on the writer lane in a single transaction.
+     */
+    private void flush() {
+        List<PendingWrite> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pendingWrites.values());
+            pendingWrites.clear();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        dbDispatcher.executeWrite(() -> {
+            List<User> writtenUsers = new ArrayList<>();
+            try {
+                db.runInTransaction(() -> {
+                    for (PendingWrite write : batch) {
+                        writtenUsers.add(apply(write));
+                    }
+                });
+                Log.d(TAG, TAG + " flush - " + batch.size() + " users written in one transaction");
+
+            } catch (Exception e) {
+                Log.e(TAG, "flush - Error writing batch", e);
+                for (PendingWrite write : batch) {
+                    for (UserRepository.Callback<Integer> callback : write.callbacks) {
+                        callback.onError("Error : failed to save changes");
+                    }
+                }
+                return;
+            }
+
+            // Write through to the user cache and the ID index only once the transaction has committed
+            for (int i = 0; i < batch.size(); i++) {
+                User user = writtenUsers.get(i);
+                if (user != null) {
+                    userCache.put(user);
+                } else {
+                    userCache.remove(batch.get(i).userId);
+                }
+                if (batch.get(i).delete) {
+                    userIdIndex.remove(batch.get(i).userId);
+                }
+            }
+
+            for (PendingWrite write : batch) {
+                for (UserRepository.Callback<Integer> callback : write.callbacks) {
+                    callback.onResult(0);   // 0 indicates success, as for the direct writes
+                }
+            }
+            outboxPusher.pushPending();
+        });
+    }
+
+    /**
+     * Applies one merged write to the users table and records it in the outbox. Runs inside the batch transaction.
+     * Users added locally are not known to the server, so their changes are not recorded in the outbox.
+     * Changes of other users are also marked in the local edits, so a later sync keeps them, see {@link LocalEdit}.
+     *
+     * @param write The merged write of a single user.
+     * @return The user as stored after the write, or null if it was deleted or does not exist.
+     */
+    private User apply(PendingWrite write) {
+        boolean remoteUser = write.userId < IdSequence.LOCAL_ID_BASE;
+        long updatedAt = Math.max(System.currentTimeMillis(), lastUpdatedAt + 1);   // Unique per change of the outbox
+        lastUpdatedAt = updatedAt;
+
+        if (write.delete) {
+            db.userDao().deleteUser(write.userId);
+            if (remoteUser) {
+                db.outboxDao().upsertPendingChange(new PendingChange(write.userId, PendingChange.DELETE,
+                        null, null, null, null, updatedAt));
+                db.userDao().upsertLocalEdit(new LocalEdit(write.userId, updatedAt));
+            }
+            return null;
+        }
+
+        db.userDao().applyUserChange(write.userId, write.firstName, write.lastName, write.email, write.avatar);
+        User user = db.userDao().getUserById(write.userId);
+        if (user != null && remoteUser) {
+            // The server receives the full current state of the user, not only the changed fields
+            db.outboxDao().upsertPendingChange(new PendingChange(user.getId(), PendingChange.UPDATE,
+                    user.getFirst_name(), user.getLast_name(), user.getEmail(), user.getAvatar(), updatedAt));
+            db.userDao().upsertLocalEdit(new LocalEdit(user.getId(), updatedAt));
+        }
+        return user;
+    }
+
+    /**
+     * The merged pending write of a single user. Null fields are left unchanged.
+     */
+    private static class PendingWrite {
+
+        final int userId;
+        final List<UserRepository.Callback<Integer>> callbacks = new ArrayList<>();
+        boolean delete;
+        String firstName;
+        String lastName;
+        String email;
+        String avatar;
+
+        PendingWrite(int userId) {
+            this.userId = userId;
+        }
+    }
+}
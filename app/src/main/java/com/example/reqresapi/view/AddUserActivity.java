@@ -6,6 +6,7 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import com.example.reqresapi.R;
 import com.example.reqresapi.util.Utilities;
 import com.example.reqresapi.model.models.User;
@@ -40,9 +41,9 @@ public class AddUserActivity extends AppCompatActivity {
         btnAddUser = findViewById(R.id.btnAddUser);
         btnAddUser = findViewById(R.id.btnAddUser);
 
-        // Initialize UserViewModel with UserRepository
-        UserRepository userRepository = new UserRepository(this);
-        userViewModel = new UserViewModel(userRepository);
+        // Get the retained UserViewModel, backed by the application-scoped UserRepository
+        userViewModel = new ViewModelProvider(this, ViewModelProvider.Factory.from(UserViewModel.initializer))
+                .get(UserViewModel.class);
 
         // Set up bottom navigation, marking 'Add User' as the selected page
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
@@ -88,4 +89,14 @@ public class AddUserActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Called when the activity is destroyed. Drops the result of a pending add and releases the callback referencing
+     * this activity instance; the user is still stored.
+     */
+    @Override
+    protected void onDestroy() {
+        userViewModel.cancelPendingWork();
+        super.onDestroy();
+    }
+
 }
@@ -2,16 +2,21 @@ package com.example.reqresapi.view;
 import android.annotation.SuppressLint;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.widget.EditText;
 import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.PickVisualMediaRequest;
 import androidx.activity.result.contract.ActivityResultContracts;
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.example.reqresapi.R;
 import com.example.reqresapi.model.models.User;
 import com.example.reqresapi.model.models.UserItem;
@@ -19,28 +24,24 @@ import com.example.reqresapi.model.repository.UserRepository;
 import com.example.reqresapi.util.Utilities;
 import com.example.reqresapi.viewmodel.UserViewModel;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
- * MainActivity handles the display of a list of users, fetched from an API and stored locally.
+ * MainActivity handles the display of a paged list of users, fetched from an API and stored locally.
  * It supports CRUD operations and pagination, following the MVVM architecture pattern.
  */
 public class MainActivity extends AppCompatActivity {
 
     private final String TAG = "MainActivity"; // Tag for logging
-    private int page = 1; // Tracks the current page for pagination
-    private UserRepository userRepository; // Repository for user data handling
+    private static final int AVATAR_PRELOAD_COUNT = 6; // Rows ahead of the scroll position whose avatars are preloaded
     private UserViewModel userViewModel; // ViewModel for managing UI-related data
     private RecyclerView recyclerView; // RecyclerView for displaying the list of users
     private MyAdapter myAdapter; // Adapter for managing user items in the RecyclerView
-    private List<UserItem> userItemList = new ArrayList<>(); // List to hold user data
     private int currentPosition = -1; // Tracks the current position of the selected item
     private ActivityResultLauncher<PickVisualMediaRequest> pickMediaLauncher; // Handles media selection for user avatars
 
     /**
      * Initializes the activity, sets up the user interface, and manages the lifecycle of the application.
-     * This method sets up the RecyclerView with an adapter, handles infinite scroll pagination,
+     * This method sets up the RecyclerView with a paging adapter backed by the local database,
      * and initializes the image picker for user profile pictures.
      *
      * @param savedInstanceState If the activity is being re-initialized after previously being shut down,
@@ -53,33 +54,28 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // Initialize UserRepository and UserViewModel for managing user data
-        userRepository = new UserRepository(this);
-        userViewModel = new UserViewModel(userRepository);
+        // Get the retained UserViewModel, backed by the application-scoped UserRepository
+        userViewModel = new ViewModelProvider(this, ViewModelProvider.Factory.from(UserViewModel.initializer))
+                .get(UserViewModel.class);
 
         // Set up RecyclerView with a LinearLayoutManager and adapter for displaying the list of users
         recyclerView = findViewById(R.id.recyclerview);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        myAdapter = new MyAdapter(this, userItemList);
+        myAdapter = new MyAdapter(this);
         recyclerView.setAdapter(myAdapter);
 
-        // Add scroll listener to RecyclerView for implementing infinite scroll pagination
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-
-                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
-                if (layoutManager != null && layoutManager.findLastCompletelyVisibleItemPosition() == userItemList.size() - 1) {
-                    // When the user reaches the bottom of the list, load the next page of users
-                    page++;
-                    fetchStoreDisplayUsers();
-                }
-            }
-        });
+        // Decode the avatars of the rows just ahead of the scroll position before they are bound
+        FixedPreloadSizeProvider<UserItem> avatarSizeProvider = new FixedPreloadSizeProvider<>(
+                getResources().getDimensionPixelSize(R.dimen.avatar_width),
+                getResources().getDimensionPixelSize(R.dimen.avatar_height));
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), myAdapter,
+                avatarSizeProvider, AVATAR_PRELOAD_COUNT));
+
+        // Display the paged users from the local database, the API is synced into it in the background
+        userViewModel.getUserPages().observe(this, pagingData -> myAdapter.submitData(getLifecycle(), pagingData));
 
-        // Fetch and display the first page of users from the API
-        fetchStoreDisplayUsers();
+        // Show the result of every API sync
+        userViewModel.getSyncStatus().observe(this, message -> Utilities.showToast(MainActivity.this, message));
 
         // Initialize ActivityResultLauncher for image picking (used for selecting user profile pictures)
         pickMediaLauncher = registerForActivityResult(new ActivityResultContracts.PickVisualMedia(),
@@ -93,6 +89,23 @@ public class MainActivity extends AppCompatActivity {
                     }
                 });
 
+        // Filter the list as the user types, the ViewModel waits for a pause in typing before it searches
+        EditText searchBox = findViewById(R.id.search_box);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                userViewModel.search(s.toString());
+            }
+        });
+
         // Set up bottom navigation and highlight 'Users' as the active menu item
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
         bottomNavigationView.setSelectedItemId(R.id.navigation_users);
@@ -120,14 +133,14 @@ public class MainActivity extends AppCompatActivity {
      * @param uri The URI of the selected image.
      */
     private void onImagePicked(Uri uri) {
-        // Update the image for the specific item in the adapter
-        UserItem userItem = userItemList.get(currentPosition);
-        userItem.setAvatar(uri.toString()); // Store the image URI in the UserItem
-
-        myAdapter.notifyItemChanged(currentPosition); // Notify the adapter to refresh the item
-
-        // Save the updated avatar to the database
-        userViewModel.updateAvatar(userItem.getId(), uri.toString(), new UserRepository.Callback<Integer>() {
+        // Get the user item the image was picked for
+        UserItem userItem = myAdapter.getUserItem(currentPosition);
+        if (userItem == null) {
+            return;
+        }
+
+        // Import the image as a thumbnail and save its path, the paged list reloads the item once it is stored
+        userViewModel.importAvatar(userItem.getId(), uri, new UserRepository.Callback<Integer>() {
             @Override
             public void onResult(Integer result) {
                 runOnUiThread(() -> {
@@ -144,64 +157,6 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    /**
-     * Fetches users from the API, stores them in the database, and then displays them in the UI.
-     */
-    private void fetchStoreDisplayUsers() {
-        // Fetch users from the API and store them in the database
-        userViewModel.fetchFromApiStoreInDB(page, new UserRepository.Callback<Integer>() {
-            @Override
-            public void onResult(Integer newUsersCount) {
-                // On successful API fetch, show a toast message and fetch the users from the local database
-                runOnUiThread(() -> {
-                    Utilities.showToast(MainActivity.this, newUsersCount + Utilities.NewUsersAdded);
-                    fetchFromLocalDB();  // Load users from the database after storing the new ones
-                });
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                // If there's an error fetching from the API, show an error message and fetch users from the local database
-                runOnUiThread(() -> {
-                    Utilities.showToast(MainActivity.this,Utilities.Error + errorMessage);
-                    fetchFromLocalDB();  // Load users from the database even if the API fetch fails
-                });
-            }
-        });
-    }
-
-    /**
-     * Fetches users from the local database and updates the UI.
-     * If no users are found, it shows a toast message indicating that.
-     */
-    private void fetchFromLocalDB() {
-        // Fetch users from the local database
-        userViewModel.fetchFromDB(new UserRepository.Callback<List<User>>() {
-            @Override
-            public void onResult(List<User> users) {
-                if (users != null && !users.isEmpty()) {
-                    // Clear the current list and add the users retrieved from the database
-                    userItemList.clear();
-                    for (User user : users) {
-                        userItemList.add(new UserItem(user.getId(), user.getEmail(), user.getFirst_name(), user.getLast_name(), user.getAvatar()));
-                    }
-                    // Notify the adapter to update the UI with the new list of users
-                    runOnUiThread(() -> myAdapter.notifyDataSetChanged());
-
-                } else {
-                    // Show a toast message if no users are found in the databas
-                    Utilities.showToast(MainActivity.this, Utilities.NoUsersFound);
-                }
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                // Show an error message if there's an issue fetching users from the database
-                Utilities.showToast(MainActivity.this, errorMessage);
-            }
-        });
-    }
-
     /**
      * Handles the update button click event for a user at a specific position.
      * Retrieves the updated details from the EditText fields, updates the user in the database,
@@ -223,7 +178,10 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, TAG + " data : " + updatedFirstName + " " + updatedLastName + " " + updatedEmail);
 
         // Get the user item at this position in the list
-        UserItem userItem = userItemList.get(position);
+        UserItem userItem = myAdapter.getUserItem(position);
+        if (userItem == null) {
+            return;
+        }
 
         // Create the updated User object with the new details
         User updatedUser = new User(
@@ -238,16 +196,8 @@ public class MainActivity extends AppCompatActivity {
         userViewModel.updateDB(updatedUser, firstNameField, lastNameField, emailField, new UserRepository.Callback<Integer>() {
             @Override
             public void onResult(Integer result) {
-                // On successful update, refresh the UI
+                // On successful update, the paged list reloads the item from the database, show success message
                 runOnUiThread(() -> {
-                    // Update the user item in the list with the new details
-                    userItem.setFirst_name(updatedFirstName);
-                    userItem.setLast_name(updatedLastName);
-                    userItem.setEmail(updatedEmail);
-                    userItem.setAvatar(updatedUser.getAvatar());
-
-                    // Notify the adapter that the item has been updated, then show success message
-                    myAdapter.notifyItemChanged(position);
                     Utilities.showToast(MainActivity.this, Utilities.UserUpdatedSuccessfully);
                 });
             }
@@ -272,7 +222,10 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "Delete button clicked for user at position: " + position);
 
         // Get the user item at this position in the list
-        UserItem userItem = userItemList.get(position);
+        UserItem userItem = myAdapter.getUserItem(position);
+        if (userItem == null) {
+            return;
+        }
 
         // Create a User object representing the user to be deleted
         User userToDelete = new User(
@@ -287,15 +240,8 @@ public class MainActivity extends AppCompatActivity {
         userViewModel.deleteUser(userToDelete, new UserRepository.Callback<Integer>() {
             @Override
             public void onResult(Integer result) {
-                // On successful deletion, update the UI
+                // On successful deletion, the paged list drops the item once the database changes
                 runOnUiThread(() -> {
-                    // Remove the item from the list
-                    userItemList.remove(position);
-                    // Notify the adapter about the removed item
-                    myAdapter.notifyItemRemoved(position);
-                    // Rebind the adapter to ensure positions are updated
-                    myAdapter.notifyItemRangeChanged(position, userItemList.size());
-
                     // Optionally, show a success message
                     Utilities.showToast(MainActivity.this, Utilities.UserDeletedSuccessfully);
                 });
@@ -321,7 +267,10 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "refreshUser button clicked for user at position: " + position);
 
         // Get the user id of user in 'position'
-        UserItem userItem = userItemList.get(position);
+        UserItem userItem = myAdapter.getUserItem(position);
+        if (userItem == null) {
+            return;
+        }
         int userId = userItem.getId();
 
         // Use the userId to fetch the latest user data from the database and refresh the UI
@@ -329,12 +278,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onResult(User result) {
                 runOnUiThread(() -> {
-                    // Update the user details on the page with the refreshed data
-                    userItem.setFirst_name(result.getFirst_name());
-                    userItem.setLast_name(result.getLast_name());
-                    userItem.setEmail(result.getEmail());
-
-                    // Notify the adapter that the item has been updated and show success message
+                    // Rebind the item to discard unsaved edits, the item already holds the stored data, and show success message
                     myAdapter.notifyItemChanged(position);
                     Utilities.showToast(MainActivity.this, Utilities.UserRefreshedSuccessfully);
                 });
@@ -351,8 +295,8 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Called when the activity is resumed. Ensures that the 'Users' item in the bottom navigation is highlighted,
-     * and refreshes the user data from the local database to keep the UI up to date.
+     * Called when the activity is resumed. Ensures that the 'Users' item in the bottom navigation is highlighted.
+     * The paged list follows the local database on its own, so no reload is needed here.
      */
     @Override
     protected void onResume() {
@@ -362,9 +306,16 @@ public class MainActivity extends AppCompatActivity {
         // Ensure the 'Users' item is highlighted in the bottom navigation when MainActivity is resumed
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
         bottomNavigationView.setSelectedItemId(R.id.navigation_users);
+    }
 
-        // Fetch the latest user data from the local database to refresh the UI
-        fetchFromLocalDB();
+    /**
+     * Called when the activity is destroyed, including on configuration changes. The retained ViewModel cancels
+     * the pending work started for this activity instance and releases the callbacks referencing it.
+     */
+    @Override
+    protected void onDestroy() {
+        userViewModel.cancelPendingWork();
+        super.onDestroy();
     }
 
 
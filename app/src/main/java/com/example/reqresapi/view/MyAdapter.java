@@ -4,51 +4,150 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Color;
+import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.reqresapi.R;
 import com.example.reqresapi.model.models.UserItem;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * RecyclerView adapter for displaying a list of users.
+ * RecyclerView adapter for displaying a paged list of users.
+ * Only the pages around the visible window are held in memory, and new pages are diffed against the current ones
+ * on a background thread. Rows whose data changed are rebound with a payload describing the changed fields,
+ * so unchanged avatars are not reloaded and fields the user is editing are left untouched.
+ * Avatars are decoded at the size of the avatar view, and the adapter provides the avatars ahead of the scroll
+ * position to a Glide RecyclerViewPreloader with exactly the same request, so preloaded images hit the memory cache.
  * Handles the binding of user data to the views and setting up click listeners for user actions.
  */
-public class MyAdapter extends RecyclerView.Adapter<MyViewHolder> {
+public class MyAdapter extends PagingDataAdapter<UserItem, MyViewHolder>
+        implements ListPreloader.PreloadModelProvider<UserItem> {
+
+    // Change payload flags, combined into a bit mask describing which fields of a row changed
+    private static final int CHANGED_NAME = 1;
+    private static final int CHANGED_EMAIL = 1 << 1;
+    private static final int CHANGED_AVATAR = 1 << 2;
 
     Context context;    // Context of the activity where the adapter is used
-    List<UserItem> items;   // List of user items to be displayed
+    private final int avatarWidth;      // Decode size of avatars, the size of the avatar view
+    private final int avatarHeight;
+
+    /**
+     * Callback used to compare user items when a new page of data is submitted.
+     * Items are matched by their user ID, and changed items report which fields changed.
+     */
+    private static final DiffUtil.ItemCallback<UserItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<UserItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull UserItem oldItem, @NonNull UserItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull UserItem oldItem, @NonNull UserItem newItem) {
+            return Objects.equals(oldItem.getFirst_name(), newItem.getFirst_name())
+                    && Objects.equals(oldItem.getLast_name(), newItem.getLast_name())
+                    && Objects.equals(oldItem.getEmail(), newItem.getEmail())
+                    && Objects.equals(oldItem.getAvatar(), newItem.getAvatar());
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull UserItem oldItem, @NonNull UserItem newItem) {
+            int changes = 0;
+            if (!Objects.equals(oldItem.getFirst_name(), newItem.getFirst_name())
+                    || !Objects.equals(oldItem.getLast_name(), newItem.getLast_name())) {
+                changes |= CHANGED_NAME;
+            }
+            if (!Objects.equals(oldItem.getEmail(), newItem.getEmail())) {
+                changes |= CHANGED_EMAIL;
+            }
+            if (!Objects.equals(oldItem.getAvatar(), newItem.getAvatar())) {
+                changes |= CHANGED_AVATAR;
+            }
+            return changes;
+        }
+    };
 
     /**
      * Constructor for the MyAdapter class.
+     * The adapter keeps the scroll position for state restoration until the first page is loaded.
      *
      * @param context The context of the activity where the adapter is used.
-     * @param items   The list of user items to be displayed.
      */
-    public MyAdapter(Context context, List<UserItem> items) {
+    public MyAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.items = items;
+        this.avatarWidth = context.getResources().getDimensionPixelSize(R.dimen.avatar_width);
+        this.avatarHeight = context.getResources().getDimensionPixelSize(R.dimen.avatar_height);
+        setStateRestorationPolicy(StateRestorationPolicy.PREVENT_WHEN_EMPTY);
     }
 
     @NonNull
     @Override
     public MyViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // Inflate the user_item_view layout and create a new ViewHolder instance
-        return new MyViewHolder(LayoutInflater.from(context).inflate(R.layout.user_item_view, parent, false));
+        MyViewHolder holder = new MyViewHolder(LayoutInflater.from(context).inflate(R.layout.user_item_view, parent, false));
+
+        // Click listeners are set once per holder and read the holder's current position, since positions shift as pages are diffed in
+        // Set up click listener for the ImageView to allow the user to pick a new avatar
+        holder.imageView.setOnClickListener(v -> {
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                ((MainActivity) context).launchImagePicker(adapterPosition); // This calls the method in MainActivity
+            }
+        });
+
+        // Set up click listener for the update button to update the user's details
+        holder.btnUpdate.setOnClickListener(v -> {
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                ((MainActivity) context).onUpdateClick(adapterPosition, holder.firstNameView, holder.lastNameView, holder.emailView);
+            }
+        });
+
+        // Set up click listener for the delete button to delete the user
+        holder.btnDelete.setOnClickListener(v -> {
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                ((MainActivity) context).onDeleteClick(adapterPosition);
+            }
+        });
+
+        // Set up click listener for the refresh button to refresh the user's data
+        holder.btnRefresh.setOnClickListener(v -> {
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                ((MainActivity) context).onRefreshClick(adapterPosition);
+            }
+        });
+
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull MyViewHolder holder, int position) {
         // Get the current UserItem object based on the position
-        UserItem currentItem = items.get(position);
+        UserItem currentItem = getItem(position);
+        if (currentItem == null) {
+            return;     // The item is not loaded yet
+        }
 
         // Bind the user data to the views in the ViewHolder
         holder.userId.setText(String.valueOf(currentItem.getId()));
@@ -61,43 +160,123 @@ public class MyAdapter extends RecyclerView.Adapter<MyViewHolder> {
         holder.lastNameView.setTextColor(Color.BLACK);
         holder.emailView.setTextColor(Color.BLACK);
 
+        bindAvatar(holder, currentItem);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MyViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            // No payload means a full rebind, for example a recycled holder or an explicit refresh
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        UserItem currentItem = getItem(position);
+        if (currentItem == null) {
+            return;
+        }
+
+        // Merge the payloads of all pending changes and only rebind the fields that changed
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+
+        if ((changes & CHANGED_NAME) != 0) {
+            bindTextIfNotEditing(holder.firstNameView, currentItem.getFirst_name());
+            bindTextIfNotEditing(holder.lastNameView, currentItem.getLast_name());
+        }
+        if ((changes & CHANGED_EMAIL) != 0) {
+            bindTextIfNotEditing(holder.emailView, currentItem.getEmail());
+        }
+        if ((changes & CHANGED_AVATAR) != 0) {
+            bindAvatar(holder, currentItem);
+        }
+    }
+
+    /**
+     * Loads the user's avatar into the holder, or the default avatar if the user has none.
+     *
+     * @param holder The ViewHolder to bind.
+     * @param item   The user item whose avatar is shown.
+     */
+    private void bindAvatar(MyViewHolder holder, UserItem item) {
         // Load the user's avatar image using Glide
-        if (!currentItem.getAvatar().isEmpty()) {
-            Glide.with(holder.itemView.getContext())
-                    .load(currentItem.getAvatar())
+        if (item.getAvatar() != null && !item.getAvatar().isEmpty()) {
+            avatarRequest(Glide.with(holder.itemView.getContext()), item.getAvatar())
                     .into(holder.imageView);
 
         } else {
             // Set a default avatar image if the user does not have an avatar
+            Glide.with(holder.itemView.getContext()).clear(holder.imageView);
             holder.imageView.setImageResource(R.drawable.ic_launcher_foreground); // Replace with your default avatar
         }
+    }
 
-        // Set up click listener for the ImageView to allow the user to pick a new avatar
-        holder.imageView.setOnClickListener(v -> {
-            ((MainActivity) context).launchImagePicker(position); // This calls the method in MainActivity
-        });
+    /**
+     * Builds the request for an avatar. Binding and preloading must use the same request to share cache entries.
+     * Avatars are decoded at the avatar view size. Local images, such as content:// URIs from the image picker,
+     * only have the resized result cached on disk, since the original is already on the device.
+     *
+     * @param requestManager The request manager of the view or activity loading the avatar.
+     * @param avatar         The avatar URL, content:// URI or file path.
+     * @return The request builder for the avatar.
+     */
+    private RequestBuilder<Drawable> avatarRequest(RequestManager requestManager, String avatar) {
+        return requestManager.load(avatar)
+                .override(avatarWidth, avatarHeight)
+                .fitCenter()
+                .placeholder(R.drawable.ic_launcher_foreground)
+                .diskCacheStrategy(isLocalImage(avatar) ? DiskCacheStrategy.RESOURCE : DiskCacheStrategy.AUTOMATIC);
+    }
 
-        // Set up click listener for the update button to update the user's details
-        holder.btnUpdate.setOnClickListener(v -> {
-            ((MainActivity) context).onUpdateClick(position, holder.firstNameView, holder.lastNameView, holder.emailView);
-        });
+    /**
+     * @param avatar The avatar URL, content:// URI or file path.
+     * @return true if the avatar is stored on the device rather than downloaded.
+     */
+    private static boolean isLocalImage(String avatar) {
+        return avatar.startsWith("content://") || avatar.startsWith("file://") || avatar.startsWith("/");
+    }
 
-        // Set up click listener for the delete button to delete the user
-        holder.btnDelete.setOnClickListener(v -> {
-            ((MainActivity) context).onDeleteClick(position);
-        });
+    @NonNull
+    @Override
+    public List<UserItem> getPreloadItems(int position) {
+        // Peek so preloading never triggers a page load, unloaded rows are simply not preloaded
+        UserItem item = position < getItemCount() ? peek(position) : null;
+        if (item == null || item.getAvatar() == null || item.getAvatar().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(item);
+    }
 
-        // Set up click listener for the refresh button to refresh the user's data
-        holder.btnRefresh.setOnClickListener(v -> {
-            ((MainActivity) context).onRefreshClick(position);
-        });
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull UserItem item) {
+        return avatarRequest(Glide.with(context), item.getAvatar());
+    }
 
+    /**
+     * Sets the text of a field unless the user is currently editing it, so in-progress edits survive a refresh.
+     *
+     * @param field The EditText field to update.
+     * @param text  The new text.
+     */
+    private void bindTextIfNotEditing(EditText field, String text) {
+        if (!field.hasFocus()) {
+            field.setText(text);
+            field.setTextColor(Color.BLACK);
+        }
     }
 
-    @Override
-    public int getItemCount() {
-        // Return the total number of items in the list
-        return items.size();
+    /**
+     * Returns the user item at the given position without triggering a page load.
+     *
+     * @param position The position of the item in the list.
+     * @return The user item, or null if it is not loaded.
+     */
+    public UserItem getUserItem(int position) {
+        return peek(position);
     }
 }
-
@@ -1,25 +1,131 @@
 package com.example.reqresapi.viewmodel;
 import android.graphics.Color;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.EditText;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.SavedStateHandleSupport;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelKt;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.viewmodel.ViewModelInitializer;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import com.example.reqresapi.ReqResApplication;
 import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.models.UserItem;
+import com.example.reqresapi.model.repository.CancellationScope;
+import com.example.reqresapi.model.repository.RepositoryException;
+import com.example.reqresapi.model.repository.UserPagingSourceFactory;
+import com.example.reqresapi.model.repository.UserRemoteMediator;
 import com.example.reqresapi.model.repository.UserRepository;
+import com.example.reqresapi.util.Utilities;
 import android.util.Patterns;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class UserViewModel extends ViewModel {
 
     private final UserRepository userRepository;
+    private final UserPagingSourceFactory userPagingSourceFactory; // PagingSource of all users or of this list's search
+    private final SavedStateHandle savedState; // UI state restored after process death
     private final String TAG = "UserViewModel";
+    private static final String KEY_SEARCH_TEXT = "search_text"; // Saved search text of the user list
+    private final ExecutorService pagingExecutor = Executors.newSingleThreadExecutor(); // Maps paged users to list items off the main thread
+    private final MutableLiveData<String> syncStatus = new MutableLiveData<>(); // Result message of the latest API sync
+    private LiveData<PagingData<UserItem>> userPages; // Paged list of users, created on first use
+    private static final long SEARCH_DEBOUNCE_MS = 300; // Typing pause after which the search runs
+    private final Handler searchHandler = new Handler(Looper.getMainLooper()); // Debounces search input
+    private Runnable pendingSearch; // Search waiting for the typing pause, replaced by every keystroke
+    private CancellationScope scope = new CancellationScope(); // Cancels pending work and releases callbacks of the current screen
+    private final Executor direct = MoreExecutors.directExecutor(); // Completes futures on the thread that finished the work
+
+    /**
+     * Creates the ViewModel with the application-scoped repository and the saved state of its owner.
+     * Obtain it through {@code new ViewModelProvider(owner, ViewModelProvider.Factory.from(UserViewModel.initializer))},
+     * so the same instance, with its paged list and search, is kept across configuration changes.
+     */
+    public static final ViewModelInitializer<UserViewModel> initializer = new ViewModelInitializer<>(
+            UserViewModel.class,
+            extras -> {
+                ReqResApplication app = (ReqResApplication) extras.get(ViewModelProvider.AndroidViewModelFactory.APPLICATION_KEY);
+                return new UserViewModel(app.getUserRepository(), SavedStateHandleSupport.createSavedStateHandle(extras));
+            });
 
     /**
      * ViewModel class responsible for managing user data and interacting with the UserRepository.
+     * The search lives in this ViewModel's own PagingSource factory, so other screens never change it. The saved
+     * search is applied right away, so a list restored after process death shows the same results.
      *
      * @param userRepository The repository instance for handling data operations.
+     * @param savedState     The saved state of the ViewModel's owner.
      */
-    public UserViewModel(UserRepository userRepository) {
+    public UserViewModel(UserRepository userRepository, SavedStateHandle savedState) {
         this.userRepository = userRepository;
+        this.savedState = savedState;
+        this.userPagingSourceFactory = userRepository.createUserPagingSourceFactory();
+        userPagingSourceFactory.setSearchText(getSearchText());
+    }
+
+    /**
+     * Returns the paged list of users shown in the RecyclerView.
+     * Pages are loaded from the local database while the API is synced into it in the background.
+     * The stream is cached in the ViewModel scope so it survives re-subscription.
+     *
+     * @return A LiveData stream of paged user items.
+     */
+    public LiveData<PagingData<UserItem>> getUserPages() {
+        if (userPages == null) {
+            LiveData<PagingData<User>> users = PagingLiveData.getLiveData(userRepository.createUserPager(userPagingSourceFactory, new SyncListener()));
+            LiveData<PagingData<UserItem>> items = Transformations.map(users, pagingData ->
+                    PagingDataTransforms.map(pagingData, pagingExecutor, user ->
+                            new UserItem(user.getId(), user.getEmail(), user.getFirst_name(), user.getLast_name(), user.getAvatar())));
+            userPages = PagingLiveData.cachedIn(items, ViewModelKt.getViewModelScope(this));
+        }
+        return userPages;
+    }
+
+    /**
+     * Filters the paged user list by the given search text once the user stops typing.
+     * Every call replaces the pending search, so only the latest text is queried; the running query of an
+     * outdated search is cancelled when the list reloads. Must be called on the main thread.
+     *
+     * @param text The text typed in the search box, empty to show all users.
+     */
+    public void search(String text) {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+        }
+        savedState.set(KEY_SEARCH_TEXT, text);
+        pendingSearch = () -> userPagingSourceFactory.setSearchText(text);
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    /**
+     * @return The current search text of the user list, empty when all users are shown.
+     */
+    public String getSearchText() {
+        String text = savedState.get(KEY_SEARCH_TEXT);
+        return text != null ? text : "";
+    }
+
+    /**
+     * Returns the result message of the latest API sync, such as the number of new users added or an error.
+     *
+     * @return A LiveData stream of sync result messages.
+     */
+    public LiveData<String> getSyncStatus() {
+        return syncStatus;
     }
 
     /**
@@ -30,19 +136,7 @@ public class UserViewModel extends ViewModel {
      * @param callback The callback to handle the result of the fetch operation.
      */
     public void refreshUser(int userId, UserRepository.Callback<User> callback) {
-        userRepository.fetchUserById(userId, new UserRepository.Callback<User>() {
-            @Override
-            public void onResult(User user) {
-                // Pass the user object back through the callback
-                callback.onResult(user);
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                // Pass the error message back through the callback
-                callback.onError(errorMessage);
-            }
-        });
+        scope.deliver(userRepository.fetchUserByIdAsync(userId, direct), callback);
     }
 
     /**
@@ -53,38 +147,31 @@ public class UserViewModel extends ViewModel {
      * @param callback The callback to handle the result or error of the operation.
      */
     public void fetchFromApiStoreInDB(int page, UserRepository.Callback<Integer> callback) {
-        // Step 1: Fetch users from the API
-        userRepository.fetchUsersFromAPI(page, new UserRepository.Callback<List<User>>() {
-            @Override
-            public void onResult(List<User> users) {
-                if (users != null) {
-                    // Successfully fetched users from the API, returned list of users
-                    // Step 2: Store the list of users in the local database
-                    userRepository.insertUsersToLocalDB(users, new UserRepository.Callback<Integer>() {
-                        @Override
-                        public void onResult(Integer newUsersCount) {
-                            // If the insertion is successful, return the number of users added to the database
-                            callback.onResult(newUsersCount);
-                        }
-
-                        @Override
-                        public void onError(String errorMessage) {
-                            // Handle any errors that occur during the insertion process
-                            callback.onError(errorMessage);
-                        }
-                    });
-
-                } else {
-                    // Fetching users from the API failed, handle the error
-                    callback.onError("Failed to fetch users from API.");
-                }
-            }
-            @Override
-            public void onError(String errorMessage) {
-                // Fetching users from the API failed, handle the error
-                callback.onError("Error fetching users from API: " + errorMessage);
+        scope.deliver(fetchFromApiStoreInDBAsync(page, direct), callback);
+    }
+
+    /**
+     * Fetches users from the API for a specific page and stores them in the local database, as one composed future.
+     * Cancelling the future before the page has arrived cancels the request and skips storing it.
+     *
+     * @param page     The page number to fetch users from the API.
+     * @param executor The executor the stages of the returned future are completed on.
+     * @return A future of the number of users added to the database.
+     */
+    public CompletableFuture<Integer> fetchFromApiStoreInDBAsync(int page, Executor executor) {
+        // Step 1: Fetch users from the API, failures are reported as API errors
+        CompletableFuture<List<User>> fetch = userRepository.fetchUsersAsync(page, executor);
+        CompletableFuture<List<User>> users = CancellationScope.linkCancellation(fetch.exceptionally(error -> {
+            throw new RepositoryException("Error fetching users from API: " + UserRepository.errorMessage(error), error);
+        }), fetch);
+
+        // Step 2: Store the list of users in the local database
+        return CancellationScope.linkCancellation(users.thenCompose(fetchedUsers -> {
+            if (fetchedUsers == null) {
+                throw new RepositoryException("Failed to fetch users from API.");
             }
-        });
+            return userRepository.insertUsersAsync(fetchedUsers, executor);
+        }), users);
     }
 
     /**
@@ -95,30 +182,20 @@ public class UserViewModel extends ViewModel {
      */
     public void fetchFromDB(UserRepository.Callback<List<User>> callback) {
         // Fetch all users from the local database
-        userRepository.fetchAllUsersFromLocalDB(new UserRepository.Callback<List<User>>() {
-            @Override
-            public void onResult(List<User> users) {
-                if (users != null && !users.isEmpty()) {
-                    // Return the list of users fetched from the database
-                    callback.onResult(users);
-                } else {
-                    // Handle the case where no users are found in the database
-                    callback.onError("No users found in the local database.");
-                }
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                // Handle any errors that occur during the fetch operation
-                callback.onError(errorMessage);
+        CompletableFuture<List<User>> fetch = userRepository.fetchAllUsersAsync(direct);
+        scope.deliver(CancellationScope.linkCancellation(fetch.thenApply(users -> {
+            if (users == null || users.isEmpty()) {
+                // Handle the case where no users are found in the database
+                throw new RepositoryException("No users found in the local database.");
             }
-        });
+            return users;
+        }), fetch), callback);
     }
 
     /**
      * Adds a new user to the database after validating the input fields.
      * If the validation is successful, a new ID is assigned to the user, and the user is stored in the database.
-     * The result of the operation is returned through the provided callback.
+     * The result of the operation, the assigned ID, is returned through the provided callback.
      *
      * @param user           The user object to be added.
      * @param firstNameInput The EditText field containing the first name.
@@ -148,23 +225,8 @@ public class UserViewModel extends ViewModel {
             return;
         }
 
-        // Get the next available ID asynchronously from the repository
-        userRepository.getNextAvailableId(new UserRepository.Callback<Integer>() {
-            @Override
-            public void onResult(Integer newId) {
-                // Set the new ID for the user
-                user.setId(newId);
-
-                // Add the user to the database
-                userRepository.addUserToDB(user, callback);
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                // Pass the error message back to the main thread via the callback
-                callback.onError(errorMessage);
-            }
-        });
+        // Assign the next local ID and add the user to the database in one step
+        scope.deliver(userRepository.addUserWithNextIdAsync(user, direct), callback);
     }
 
     /**
@@ -177,7 +239,7 @@ public class UserViewModel extends ViewModel {
     public void deleteUser(User user, UserRepository.Callback<Integer> callback) {
         Log.d(TAG, TAG + " deleteUser");
         // Call the repository method to delete the user from the database
-        userRepository.deleteUserFromDB(user, callback);
+        scope.deliver(userRepository.deleteUserAsync(user, direct), callback);
     }
 
     /**
@@ -190,7 +252,20 @@ public class UserViewModel extends ViewModel {
      */
     public void updateAvatar(int userId, String avatar, UserRepository.Callback<Integer> callback) {
         // Call the repository method to update the user's avatar in the database
-        userRepository.updateUserAvatar(userId, avatar, callback);
+        scope.deliver(userRepository.updateUserAvatarAsync(userId, avatar, direct), callback);
+    }
+
+    /**
+     * Imports a picked image as the avatar of the user with the specified ID.
+     * The image is stored as a downscaled thumbnail in app storage, and its path becomes the user's avatar.
+     * The result of the operation is returned through the provided callback.
+     *
+     * @param userId   The ID of the user whose avatar needs to be updated.
+     * @param uri      The URI of the picked image.
+     * @param callback The callback to handle the result or error of the update operation.
+     */
+    public void importAvatar(int userId, Uri uri, UserRepository.Callback<Integer> callback) {
+        scope.deliver(userRepository.importUserAvatarAsync(userId, uri, direct), callback);
     }
 
     /**
@@ -231,7 +306,7 @@ public class UserViewModel extends ViewModel {
 
         Log.d(TAG, TAG + " - updateDB - performing 'userRepository.updateUserInDB'");
         // Perform the update operation in the database
-        userRepository.updateUserInDB(user, callback);
+        scope.deliver(userRepository.updateUserAsync(user, direct), callback);
     }
 
     /**
@@ -292,4 +367,47 @@ public class UserViewModel extends ViewModel {
         }
     }
 
+    /**
+     * Cancels the work started for the current screen and releases its callbacks: queued database reads are dropped,
+     * API requests nobody else waits for are cancelled, and no result is delivered afterwards.
+     * Writes that were already started are still stored, only their results are dropped.
+     * Must be called on the main thread when the screen is destroyed; the ViewModel keeps working for the next screen.
+     */
+    public void cancelPendingWork() {
+        CancellationScope cancelled = scope;
+        scope = new CancellationScope();
+        cancelled.cancel();
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchHandler.removeCallbacksAndMessages(null);    // Drop a search that is still waiting for the typing pause
+        scope.cancel();
+        pagingExecutor.shutdown();
+    }
+
+    /**
+     * Listener that turns the progress of an API sync into messages for the UI.
+     */
+    private class SyncListener implements UserRemoteMediator.Listener {
+
+        @Override
+        public void onPageStored(int page, int newUsersCount) {
+            Log.d(TAG, TAG + " sync - page " + page + " stored, " + newUsersCount + " new users");
+        }
+
+        @Override
+        public void onComplete(int totalPages, int totalNewUsers) {
+            // Log the database lane metrics to spot head-of-line blocking during the sync, and the cache counters
+            Log.d(TAG, "sync done - " + userRepository.getWriteMetrics() + " | " + userRepository.getReadMetrics()
+                    + " | " + userRepository.getUserCacheStats() + " | " + userRepository.getPageLoadStats());
+            syncStatus.postValue(totalNewUsers + Utilities.NewUsersAdded);
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            syncStatus.postValue(Utilities.Error + errorMessage);
+        }
+    }
 }
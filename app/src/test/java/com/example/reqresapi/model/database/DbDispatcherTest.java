@@ -0,0 +1,93 @@
+package com.example.reqresapi.model.database;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the lanes of the {@link DbDispatcher}, run on direct executors.
+ */
+public class DbDispatcherTest {
+
+    private final List<String> ran = new ArrayList<>();
+    private final List<Runnable> queuedReads = new ArrayList<>();
+
+    @Test
+    public void readsAndWritesRunOnTheirOwnLane() {
+        DbDispatcher dispatcher = new DbDispatcher(lane("writer"), lane("reader"));
+
+        dispatcher.executeWrite(() -> ran.add("write"));
+        dispatcher.executeRead(() -> ran.add("read"));
+
+        assertEquals(2, ran.size());
+        assertEquals("writer:write", ran.get(0));
+        assertEquals("reader:read", ran.get(1));
+        assertEquals(1, dispatcher.getWriteMetrics().completedTasks);
+        assertEquals(1, dispatcher.getReadMetrics().completedTasks);
+    }
+
+    @Test
+    public void queuedReadDoesNotWaitForWriter() {
+        DbDispatcher dispatcher = new DbDispatcher(Runnable::run, queuedReads::add);
+
+        dispatcher.executeRead(() -> ran.add("read"));
+        dispatcher.executeWrite(() -> ran.add("write"));
+
+        // The writer lane ran while the read is still queued on its own lane
+        assertEquals(1, ran.size());
+        assertEquals("write", ran.get(0));
+        assertEquals(1, dispatcher.getReadMetrics().queueDepth);
+        assertEquals(0, dispatcher.getReadMetrics().completedTasks);
+
+        queuedReads.get(0).run();
+        assertEquals("read", ran.get(1));
+        assertEquals(0, dispatcher.getReadMetrics().queueDepth);
+        assertEquals(1, dispatcher.getReadMetrics().completedTasks);
+    }
+
+    @Test
+    public void metricsCountTaskAsActiveWhileItRuns() {
+        DbDispatcher dispatcher = new DbDispatcher(Runnable::run, Runnable::run);
+        List<Integer> activeDuringTask = new ArrayList<>();
+
+        dispatcher.executeWrite(() -> activeDuringTask.add(dispatcher.getWriteMetrics().activeTasks));
+
+        assertEquals(1, (int) activeDuringTask.get(0));
+        assertEquals(0, dispatcher.getWriteMetrics().activeTasks);
+    }
+
+    @Test
+    public void failingTaskLeavesLaneUsable() {
+        DbDispatcher dispatcher = new DbDispatcher(Runnable::run, Runnable::run);
+
+        try {
+            dispatcher.executeWrite(() -> {
+                throw new IllegalStateException("write failed");
+            });
+            fail("The failure of a direct task reaches the caller");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+        dispatcher.executeWrite(() -> ran.add("write"));
+
+        assertEquals(1, ran.size());
+        assertEquals(0, dispatcher.getWriteMetrics().activeTasks);
+        assertEquals(2, dispatcher.getWriteMetrics().completedTasks);
+    }
+
+    /**
+     * @param name The name recorded for every task the executor runs.
+     * @return A direct executor that records which lane ran each task.
+     */
+    private Executor lane(String name) {
+        return task -> {
+            int before = ran.size();
+            task.run();
+            ran.set(before, name + ":" + ran.get(before));
+        };
+    }
+}
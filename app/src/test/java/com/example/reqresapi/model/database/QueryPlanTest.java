@@ -0,0 +1,226 @@
+package com.example.reqresapi.model.database;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the query plan of every DAO query against the latest exported schema, so a new query that would
+ * scan a whole table fails the build. The queries are read from the DAO sources, since Room's annotations
+ * are not visible at runtime, and planned by SQLite on the JVM.
+ * A query that reads a whole table on purpose has to be listed in {@link #INTENDED_FULL_SCANS} with the reason.
+ */
+public class QueryPlanTest {
+
+    private static final File SCHEMA_DIR = new File("schemas/com.example.reqresapi.model.database.AppDatabase");
+    private static final File DAO_DIR = new File("src/main/java/com/example/reqresapi/model/database");
+
+    private static final Pattern VIRTUAL_TABLE_INDEX = Pattern.compile("VIRTUAL TABLE INDEX (\\d+):");
+
+    private static final Map<String, String> INTENDED_FULL_SCANS = new HashMap<>();
+
+    static {
+        INTENDED_FULL_SCANS.put("UserDao.getAllUsers", "returns every user");
+        INTENDED_FULL_SCANS.put("UserDao.getAllUserIds", "returns every user ID");
+        INTENDED_FULL_SCANS.put("UserDao.getUsersPagingSource", "pages through every user in primary key order");
+        INTENDED_FULL_SCANS.put("OutboxDao.getPendingChanges", "drains the whole outbox");
+    }
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : latestSchemaStatements()) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void daoQueriesDoNotScanWholeTables() throws Exception {
+        List<DaoQuery> queries = readDaoQueries();
+        assertFalse("No DAO queries found in " + DAO_DIR.getAbsolutePath(), queries.isEmpty());
+
+        List<String> failures = new ArrayList<>();
+        for (DaoQuery query : queries) {
+            List<String> scans = fullScans(query.sql);
+            if (!scans.isEmpty() && !INTENDED_FULL_SCANS.containsKey(query.name)) {
+                failures.add(query.name + " does " + scans + " : " + query.sql);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            fail("Queries scanning a whole table, add an index or list them in INTENDED_FULL_SCANS:\n"
+                    + String.join("\n", failures));
+        }
+    }
+
+    @Test
+    public void emailLookupUsesIndex() throws Exception {
+        assertTrue(fullScans("SELECT * FROM users WHERE email = :email LIMIT 1").isEmpty());
+        assertTrue(plan("SELECT * FROM users WHERE email = :email LIMIT 1").toString().contains("index_users_email"));
+    }
+
+    @Test
+    public void ftsMatchIsAllowedButFullFtsScanIsNot() throws Exception {
+        assertTrue(fullScans("SELECT users.* FROM users JOIN users_fts ON users.id = users_fts.rowid "
+                + "WHERE users_fts MATCH :ftsMatch ORDER BY users.id ASC").isEmpty());
+        assertFalse(fullScans("SELECT rowid FROM users_fts").isEmpty());
+    }
+
+    /**
+     * @param sql The query to plan.
+     * @return The plan steps that scan a whole table or index, empty if the query only searches.
+     */
+    private List<String> fullScans(String sql) throws SQLException {
+        List<String> scans = new ArrayList<>();
+        for (String step : plan(sql)) {
+            // SEARCH steps use an index or the primary key, SCAN steps read every row; FTS lookups show as virtual table
+            // scans with a non-zero index number, while INDEX 0 reads the whole FTS table
+            if (step.startsWith("SCAN ") && !isVirtualTableLookup(step)) {
+                scans.add(step);
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * @param step A plan step.
+     * @return true if the step is a virtual table scan that uses the table's index, such as an FTS MATCH or rowid lookup.
+     */
+    private static boolean isVirtualTableLookup(String step) {
+        Matcher matcher = VIRTUAL_TABLE_INDEX.matcher(step);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != 0;
+    }
+
+    private List<String> plan(String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (result.next()) {
+                steps.add(result.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Reads the statements that create the latest exported schema, with the table names filled in.
+     */
+    private static List<String> latestSchemaStatements() throws IOException {
+        File latest = null;
+        int latestVersion = 0;
+        File[] files = SCHEMA_DIR.listFiles((dir, name) -> name.endsWith(".json"));
+        assertTrue("No exported schemas in " + SCHEMA_DIR.getAbsolutePath(), files != null && files.length > 0);
+        for (File file : files) {
+            int version = Integer.parseInt(file.getName().replace(".json", ""));
+            if (version > latestVersion) {
+                latestVersion = version;
+                latest = file;
+            }
+        }
+
+        List<String> statements = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(latest.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject database = new JsonParser().parse(reader).getAsJsonObject().getAsJsonObject("database");
+            for (JsonElement element : database.getAsJsonArray("entities")) {
+                JsonObject entity = element.getAsJsonObject();
+                String tableName = entity.get("tableName").getAsString();
+                statements.add(entity.get("createSql").getAsString().replace("${TABLE_NAME}", tableName));
+                for (JsonElement index : entity.getAsJsonArray("indices")) {
+                    statements.add(index.getAsJsonObject().get("createSql").getAsString().replace("${TABLE_NAME}", tableName));
+                }
+                JsonArray triggers = entity.getAsJsonArray("contentSyncTriggers");
+                if (triggers != null) {
+                    for (JsonElement trigger : triggers) {
+                        statements.add(trigger.getAsString());
+                    }
+                }
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Extracts the SQL of every {@code @Query} annotation in the DAO sources, joining concatenated string literals.
+     */
+    private static List<DaoQuery> readDaoQueries() throws IOException {
+        List<DaoQuery> queries = new ArrayList<>();
+        File[] daoFiles = DAO_DIR.listFiles((dir, name) -> name.endsWith("Dao.java"));
+        if (daoFiles == null) {
+            return queries;
+        }
+
+        for (File daoFile : daoFiles) {
+            String dao = daoFile.getName().replace(".java", "");
+            String source = new String(Files.readAllBytes(daoFile.toPath()), StandardCharsets.UTF_8);
+            int position = source.indexOf("@Query(");
+            while (position >= 0) {
+                StringBuilder sql = new StringBuilder();
+                int i = position + "@Query(".length();
+                while (source.charAt(i) != ')') {
+                    if (source.charAt(i) == '"') {
+                        int end = source.indexOf('"', i + 1);
+                        sql.append(source, i + 1, end);
+                        i = end;
+                    }
+                    i++;
+                }
+
+                // The method name is the identifier in front of the first parenthesis after the annotation
+                int parenthesis = source.indexOf('(', i + 1);
+                int nameStart = parenthesis;
+                while (Character.isJavaIdentifierPart(source.charAt(nameStart - 1))) {
+                    nameStart--;
+                }
+                queries.add(new DaoQuery(dao + "." + source.substring(nameStart, parenthesis), sql.toString()));
+                position = source.indexOf("@Query(", i);
+            }
+        }
+        return queries;
+    }
+
+    private static class DaoQuery {
+
+        final String name;
+        final String sql;
+
+        DaoQuery(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.reqresapi.model.database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for building FTS MATCH expressions from search box input.
+ */
+public class SearchQueryTest {
+
+    @Test
+    public void everyWordBecomesAPrefixTerm() {
+        assertEquals("jan* wea*", SearchQuery.toFtsMatch("Jan Wea"));
+    }
+
+    @Test
+    public void emailIsSplitLikeTheTokenizer() {
+        assertEquals("janet* weaver* reqres*", SearchQuery.toFtsMatch("janet.weaver@reqres"));
+    }
+
+    @Test
+    public void ftsOperatorsAreNotPassedThrough() {
+        assertEquals("george* bluth*", SearchQuery.toFtsMatch("\"george\" -bluth*"));
+        assertEquals("a* or* b*", SearchQuery.toFtsMatch("a OR b"));
+    }
+
+    @Test
+    public void blankInputMatchesNothing() {
+        assertEquals("", SearchQuery.toFtsMatch("  .@ "));
+        assertEquals("", SearchQuery.toFtsMatch(null));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.reqresapi.model.network;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the backoff delays and the per-host retry budget of the {@link RetryScheduler}.
+ * The jitter and the clock are replaced, so every delay and refill is deterministic.
+ */
+public class RetrySchedulerTest {
+
+    private static final long BASE_DELAY_MS = 2000;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void delayCeilingDoublesWithEveryAttempt() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling, now::get);
+
+        assertEquals(2000, scheduler.computeDelayMs(BASE_DELAY_MS, 0, null));
+        assertEquals(4000, scheduler.computeDelayMs(BASE_DELAY_MS, 1, null));
+        assertEquals(8000, scheduler.computeDelayMs(BASE_DELAY_MS, 2, null));
+        assertEquals(16000, scheduler.computeDelayMs(BASE_DELAY_MS, 3, null));
+    }
+
+    @Test
+    public void delayIsCappedForLateAttempts() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling, now::get);
+
+        assertEquals(RetryScheduler.MAX_DELAY_MS, scheduler.computeDelayMs(BASE_DELAY_MS, 4, null));
+        assertEquals(RetryScheduler.MAX_DELAY_MS, scheduler.computeDelayMs(BASE_DELAY_MS, 16, null));
+        // The shift is bounded, so a huge attempt number does not overflow into a negative delay
+        assertEquals(RetryScheduler.MAX_DELAY_MS, scheduler.computeDelayMs(BASE_DELAY_MS, 1000, null));
+    }
+
+    @Test
+    public void jitterPicksDelayBelowCeiling() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling / 2, now::get);
+
+        assertEquals(1000, scheduler.computeDelayMs(BASE_DELAY_MS, 0, null));
+        assertEquals(RetryScheduler.MAX_DELAY_MS / 2, scheduler.computeDelayMs(BASE_DELAY_MS, 10, null));
+    }
+
+    @Test
+    public void retriesAreRefusedOnceBudgetIsSpent() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling, now::get);
+
+        for (int i = 0; i < RetryScheduler.MAX_RETRY_TOKENS; i++) {
+            assertTrue(scheduler.tryAcquireRetry("reqres.in"));
+        }
+        assertFalse(scheduler.tryAcquireRetry("reqres.in"));
+        // Every host has its own budget
+        assertTrue(scheduler.tryAcquireRetry("example.com"));
+    }
+
+    @Test
+    public void budgetRefillsOverTime() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling, now::get);
+        for (int i = 0; i < RetryScheduler.MAX_RETRY_TOKENS; i++) {
+            scheduler.tryAcquireRetry("reqres.in");
+        }
+
+        now.addAndGet(RetryScheduler.RETRY_TOKEN_REFILL_MS - 1);
+        assertFalse(scheduler.tryAcquireRetry("reqres.in"));
+
+        now.addAndGet(1);
+        assertTrue(scheduler.tryAcquireRetry("reqres.in"));
+        assertFalse(scheduler.tryAcquireRetry("reqres.in"));
+    }
+
+    @Test
+    public void budgetNeverGrowsPastBurstSize() {
+        RetryScheduler scheduler = new RetryScheduler(executor, ceiling -> ceiling, now::get);
+        scheduler.tryAcquireRetry("reqres.in");
+
+        now.addAndGet(100 * RetryScheduler.RETRY_TOKEN_REFILL_MS);
+        for (int i = 0; i < RetryScheduler.MAX_RETRY_TOKENS; i++) {
+            assertTrue(scheduler.tryAcquireRetry("reqres.in"));
+        }
+        assertFalse(scheduler.tryAcquireRetry("reqres.in"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.reqresapi.model.network;
+
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.models.UserResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link UserResponseTypeAdapter}, including a check that it matches the reflective Gson path.
+ * Its speed is compared in the JMH {@code UserResponseParsingBenchmark}.
+ */
+public class UserResponseTypeAdapterTest {
+
+    private static final String PAGE_JSON = "{\"page\":2,\"per_page\":2,\"total\":12,\"total_pages\":6,"
+            + "\"data\":[{\"id\":7,\"email\":\"michael.lawson@reqres.in\",\"first_name\":\"Michael\",\"last_name\":\"Lawson\","
+            + "\"avatar\":\"https://reqres.in/img/faces/7-image.jpg\"},"
+            + "{\"id\":8,\"email\":\"lindsay.ferguson@reqres.in\",\"first_name\":\"Lindsay\",\"last_name\":null,\"avatar\":\"\"}],"
+            + "\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"Thanks\"}}";
+
+    private final Gson streamingGson = new GsonBuilder()
+            .registerTypeAdapter(UserResponse.class, new UserResponseTypeAdapter())
+            .create();
+    private final Gson reflectiveGson = new Gson();
+
+    @Test
+    public void read_parsesPaginationAndUsers() {
+        UserResponse response = streamingGson.fromJson(PAGE_JSON, UserResponse.class);
+
+        assertEquals(2, response.getPage());
+        assertEquals(2, response.getPerPage());
+        assertEquals(12, response.getTotal());
+        assertEquals(6, response.getTotalPages());
+        assertNull(response.getSupport());
+
+        List<User> users = response.getData();
+        assertEquals(2, users.size());
+        assertEquals(7, users.get(0).getId());
+        assertEquals("michael.lawson@reqres.in", users.get(0).getEmail());
+        assertEquals("Michael", users.get(0).getFirst_name());
+        assertEquals("Lawson", users.get(0).getLast_name());
+        assertEquals("https://reqres.in/img/faces/7-image.jpg", users.get(0).getAvatar());
+        assertNull(users.get(1).getLast_name());
+    }
+
+    @Test
+    public void read_matchesReflectiveGson() {
+        String json = buildPage(500);
+        List<User> streamed = streamingGson.fromJson(json, UserResponse.class).getData();
+        List<User> reflected = reflectiveGson.fromJson(json, UserResponse.class).getData();
+
+        assertEquals(reflected.size(), streamed.size());
+        for (int i = 0; i < reflected.size(); i++) {
+            assertEquals(reflected.get(i).getId(), streamed.get(i).getId());
+            assertEquals(reflected.get(i).getEmail(), streamed.get(i).getEmail());
+            assertEquals(reflected.get(i).getFirst_name(), streamed.get(i).getFirst_name());
+            assertEquals(reflected.get(i).getLast_name(), streamed.get(i).getLast_name());
+            assertEquals(reflected.get(i).getAvatar(), streamed.get(i).getAvatar());
+        }
+    }
+
+    @Test
+    public void writeThenRead_roundTrips() {
+        UserResponse response = streamingGson.fromJson(PAGE_JSON, UserResponse.class);
+        UserResponse copy = streamingGson.fromJson(streamingGson.toJson(response), UserResponse.class);
+
+        assertEquals(response.getTotalPages(), copy.getTotalPages());
+        assertEquals(response.getData().size(), copy.getData().size());
+        assertEquals(response.getData().get(1).getEmail(), copy.getData().get(1).getEmail());
+    }
+
+    private static String buildPage(int users) {
+        StringBuilder json = new StringBuilder("{\"page\":1,\"per_page\":").append(users)
+                .append(",\"total\":").append(users).append(",\"total_pages\":1,\"data\":[");
+        for (int i = 1; i <= users; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"email\":\"user").append(i).append("@reqres.in\"")
+                    .append(",\"first_name\":\"First").append(i).append('"')
+                    .append(",\"last_name\":\"Last").append(i).append('"')
+                    .append(",\"avatar\":\"https://reqres.in/img/faces/").append(i).append("-image.jpg\"}");
+        }
+        return json.append("],\"support\":{\"url\":\"https://reqres.in\",\"text\":\"Thanks\"}}").toString();
+    }
+}
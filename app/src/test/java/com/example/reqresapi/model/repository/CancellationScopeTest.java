@@ -0,0 +1,128 @@
+package com.example.reqresapi.model.repository;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for cancelling repository futures through a {@link CancellationScope}.
+ */
+public class CancellationScopeTest {
+
+    @Test
+    public void cancelCancelsTrackedFutures() {
+        CancellationScope scope = new CancellationScope();
+        CompletableFuture<Integer> pending = scope.track(new CompletableFuture<>());
+        CompletableFuture<Integer> completed = scope.track(new CompletableFuture<>());
+        completed.complete(1);
+
+        scope.cancel();
+
+        assertTrue(scope.isCancelled());
+        assertTrue(pending.isCancelled());
+        assertFalse(completed.isCancelled());
+    }
+
+    @Test
+    public void trackAfterCancelCancelsRightAway() {
+        CancellationScope scope = new CancellationScope();
+        scope.cancel();
+
+        assertTrue(scope.track(new CompletableFuture<Integer>()).isCancelled());
+    }
+
+    @Test
+    public void deliverPassesResultAndUnwrappedError() {
+        CancellationScope scope = new CancellationScope();
+        RecordingCallback<Integer> success = new RecordingCallback<>();
+        RecordingCallback<Integer> failure = new RecordingCallback<>();
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+
+        scope.deliver(source.thenApply(value -> value + 1), success);
+        scope.deliver(source.thenApply(value -> {
+            throw new RepositoryException("Error : failed");
+        }), failure);
+        source.complete(1);
+
+        assertEquals(Integer.valueOf(2), success.result.get());
+        assertEquals("Error : failed", failure.error.get());
+    }
+
+    @Test
+    public void deliverDropsResultAfterCancel() {
+        CancellationScope scope = new CancellationScope();
+        RecordingCallback<Integer> callback = new RecordingCallback<>();
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        scope.deliver(future, callback);
+        scope.cancel();
+        future.complete(1);
+
+        assertTrue(future.isCancelled());
+        assertEquals(0, callback.calls);
+    }
+
+    @Test
+    public void linkCancellationCancelsUpstreamOnlyWhenCancelled() {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CompletableFuture<Integer> dependent = CancellationScope.linkCancellation(upstream.thenApply(value -> value), upstream);
+        dependent.cancel(false);
+        assertTrue(upstream.isCancelled());
+
+        CompletableFuture<Integer> failedUpstream = new CompletableFuture<>();
+        CompletableFuture<Integer> failedDependent = new CompletableFuture<>();
+        CancellationScope.linkCancellation(failedDependent, failedUpstream);
+        failedDependent.completeExceptionally(new RepositoryException("Error : failed"));
+        assertFalse(failedUpstream.isDone());
+    }
+
+    @Test
+    public void callbackFailureReachesUncaughtExceptionHandler() {
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler previous = thread.getUncaughtExceptionHandler();
+        List<Throwable> uncaught = new ArrayList<>();
+        thread.setUncaughtExceptionHandler((failedThread, error) -> uncaught.add(error));
+        try {
+            CancellationScope scope = new CancellationScope();
+            IllegalStateException failure = new IllegalStateException("callback failed");
+            scope.deliver(CompletableFuture.completedFuture(1), new RecordingCallback<Integer>() {
+                @Override
+                public void onResult(Integer result) {
+                    throw failure;
+                }
+            });
+
+            assertEquals(1, uncaught.size());
+            assertSame(failure, uncaught.get(0));
+        } finally {
+            thread.setUncaughtExceptionHandler(previous);
+        }
+    }
+
+    /**
+     * Callback that records what it was called with.
+     */
+    private static class RecordingCallback<T> implements UserRepository.Callback<T> {
+
+        final AtomicReference<T> result = new AtomicReference<>();
+        final AtomicReference<String> error = new AtomicReference<>();
+        int calls;
+
+        @Override
+        public void onResult(T value) {
+            calls++;
+            result.set(value);
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            calls++;
+            error.set(errorMessage);
+        }
+    }
+}
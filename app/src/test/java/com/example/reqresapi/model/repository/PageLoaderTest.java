@@ -0,0 +1,178 @@
+package com.example.reqresapi.model.repository;
+
+import com.example.reqresapi.model.models.User;
+import com.example.reqresapi.model.models.UserResponse;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the single-flight and last-page decisions of the {@link PageLoader}.
+ * The API is replaced by a fetcher that records each request and answers it when the test says so.
+ */
+public class PageLoaderTest {
+
+    private static final int PER_PAGE = 6;
+
+    private final List<Integer> fetchedPages = new ArrayList<>();
+    private final List<UserRepository.Callback<UserResponse>> pending = new ArrayList<>();
+    private final PageLoader pageLoader = new PageLoader((page, signal, callback) -> {
+        fetchedPages.add(page);
+        pending.add(callback);
+    });
+
+    @Test
+    public void firstPageIsFetchedWhileTotalIsUnknown() {
+        Result result = new Result();
+
+        pageLoader.load(1, result);
+        pending.get(0).onResult(page(1, 2, PER_PAGE));
+
+        assertEquals(1, fetchedPages.size());
+        assertEquals(1, result.response.getPage());
+        assertEquals(2, pageLoader.getStats().totalPages);
+    }
+
+    @Test
+    public void anyPageIsFetchedBeforeTotalIsKnown() {
+        pageLoader.load(50, new Result());
+
+        assertEquals(1, fetchedPages.size());
+        assertEquals(0, pageLoader.getStats().pastEndRequests);
+    }
+
+    @Test
+    public void lastPageIsFetchedAndPartialPageIsPassedOn() {
+        pageLoader.load(1, new Result());
+        pending.get(0).onResult(page(1, 2, PER_PAGE));
+
+        Result last = new Result();
+        pageLoader.load(2, last);
+        pending.get(1).onResult(page(2, 2, 2));
+
+        assertEquals(2, fetchedPages.size());
+        assertEquals(2, last.response.getData().size());
+        assertEquals(0, pageLoader.getStats().pastEndRequests);
+    }
+
+    @Test
+    public void pagePastLastIsAnsweredWithoutRequest() {
+        pageLoader.load(1, new Result());
+        pending.get(0).onResult(page(1, 2, PER_PAGE));
+
+        Result pastEnd = new Result();
+        pageLoader.load(3, pastEnd);
+
+        assertEquals(1, fetchedPages.size());
+        assertEquals(3, pastEnd.response.getPage());
+        assertEquals(2, pastEnd.response.getTotalPages());
+        assertTrue(pastEnd.response.getData().isEmpty());
+        assertEquals(1, pageLoader.getStats().pastEndRequests);
+    }
+
+    @Test
+    public void emptyResultDoesNotEndPaging() {
+        // A response without a total must not make every later page look past the end
+        pageLoader.load(1, new Result());
+        pending.get(0).onResult(page(1, 0, 0));
+
+        pageLoader.load(2, new Result());
+
+        assertEquals(2, fetchedPages.size());
+        assertEquals(0, pageLoader.getStats().totalPages);
+    }
+
+    @Test
+    public void concurrentLoadsOfSamePageShareOneRequest() {
+        Result first = new Result();
+        Result second = new Result();
+
+        pageLoader.load(1, first);
+        pageLoader.load(1, second);
+        pending.get(0).onResult(page(1, 2, PER_PAGE));
+
+        assertEquals(1, fetchedPages.size());
+        assertSame(first.response, second.response);
+        assertEquals(1, pageLoader.getStats().joinedRequests);
+
+        // Once the request is done, the page can be loaded again
+        pageLoader.load(1, new Result());
+        assertEquals(2, fetchedPages.size());
+    }
+
+    @Test
+    public void errorReachesEveryWaitingCaller() {
+        Result first = new Result();
+        Result second = new Result();
+
+        pageLoader.load(1, first);
+        pageLoader.load(1, second);
+        pending.get(0).onError("Error : offline");
+
+        assertEquals("Error : offline", first.error);
+        assertEquals("Error : offline", second.error);
+    }
+
+    @Test
+    public void detachedCallerIsNotCalled() {
+        Result detached = new Result();
+        Result staying = new Result();
+
+        Runnable detach = pageLoader.load(1, detached);
+        pageLoader.load(1, staying);
+        detach.run();
+        pending.get(0).onResult(page(1, 2, PER_PAGE));
+
+        assertEquals(0, detached.calls);
+        assertEquals(1, staying.calls);
+    }
+
+    @Test
+    public void pageIsFetchedAgainOnceEveryCallerDetached() {
+        Runnable detach = pageLoader.load(1, new Result());
+        detach.run();
+
+        pageLoader.load(1, new Result());
+
+        assertEquals(2, fetchedPages.size());
+    }
+
+    private static UserResponse page(int page, int totalPages, int users) {
+        List<User> data = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            int id = (page - 1) * PER_PAGE + i + 1;
+            data.add(new User(id, "user" + id + "@reqres.in", "First", "Last", null));
+        }
+        UserResponse response = new UserResponse();
+        response.setPage(page);
+        response.setTotalPages(totalPages);
+        response.setData(data);
+        return response;
+    }
+
+    /**
+     * Callback that records what it was called with.
+     */
+    private static class Result implements UserRepository.Callback<UserResponse> {
+
+        UserResponse response;
+        String error;
+        int calls;
+
+        @Override
+        public void onResult(UserResponse result) {
+            calls++;
+            response = result;
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            calls++;
+            error = errorMessage;
+        }
+    }
+}
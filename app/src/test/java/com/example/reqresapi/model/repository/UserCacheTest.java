@@ -0,0 +1,85 @@
+package com.example.reqresapi.model.repository;
+
+import com.example.reqresapi.model.models.User;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the copies, eviction and invalidation of the {@link UserCache}.
+ */
+public class UserCacheTest {
+
+    private final UserCache userCache = new UserCache(256 * 1024);
+
+    @Test
+    public void editingReturnedUserDoesNotChangeCache() {
+        userCache.put(user(1, "Janet"));
+
+        userCache.get(1).setFirst_name("Jane");
+
+        assertEquals("Janet", userCache.get(1).getFirst_name());
+    }
+
+    @Test
+    public void editingStoredUserDoesNotChangeCache() {
+        User user = user(1, "Janet");
+        userCache.put(user);
+
+        user.setFirst_name("Jane");
+
+        assertEquals("Janet", userCache.get(1).getFirst_name());
+        assertNotSame(user, userCache.get(1));
+    }
+
+    @Test
+    public void putReplacesCachedUser() {
+        userCache.put(user(1, "Janet"));
+        userCache.put(user(1, "Jane"));
+
+        assertEquals("Jane", userCache.get(1).getFirst_name());
+    }
+
+    @Test
+    public void removeInvalidatesUser() {
+        userCache.put(user(1, "Janet"));
+
+        userCache.remove(1);
+
+        assertNull(userCache.get(1));
+        assertEquals(1, userCache.getStats().misses);
+        assertEquals(0, userCache.getStats().sizeBytes);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        userCache.put(user(1, "Janet"));
+
+        userCache.get(1);
+        userCache.get(2);
+
+        assertEquals(1, userCache.getStats().hits);
+        assertEquals(1, userCache.getStats().misses);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedUserWhenFull() {
+        // Room for two users of this size, but not three
+        UserCache smallCache = new UserCache(2 * UserCache.estimateSize(user(1, "Janet")) + 1);
+        smallCache.put(user(1, "Janet"));
+        smallCache.put(user(2, "Emma"));
+        smallCache.get(1);      // User 2 is now the least recently used
+
+        smallCache.put(user(3, "Eve"));
+
+        assertNotNull(smallCache.get(1));
+        assertNull(smallCache.get(2));
+        assertNotNull(smallCache.get(3));
+        assertEquals(1, smallCache.getStats().evictions);
+    }
+
+    private static User user(int id, String firstName) {
+        return new User(id, "user" + id + "@reqres.in", firstName, "Weaver", "https://reqres.in/img/faces/" + id + "-image.jpg");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.reqresapi.model.repository;
+
+import com.example.reqresapi.model.models.IdSequence;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the lookups and updates of the {@link UserIdIndex}.
+ */
+public class UserIdIndexTest {
+
+    private final UserIdIndex userIdIndex = new UserIdIndex();
+
+    @Before
+    public void setUp() {
+        userIdIndex.markLoaded();
+    }
+
+    @Test
+    public void addedIdsAreFound() {
+        userIdIndex.add(7);
+        userIdIndex.add(IdSequence.LOCAL_ID_BASE + 3);
+
+        assertTrue(userIdIndex.contains(7));
+        assertTrue(userIdIndex.contains(IdSequence.LOCAL_ID_BASE + 3));
+    }
+
+    @Test
+    public void missingIdsAreNotFound() {
+        userIdIndex.add(7);
+
+        assertFalse(userIdIndex.contains(8));
+        assertFalse(userIdIndex.contains(0));
+        assertFalse(userIdIndex.contains(IdSequence.LOCAL_ID_BASE + 7));
+        assertFalse(userIdIndex.contains(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void removedIdsAreNotFound() {
+        userIdIndex.add(7);
+        userIdIndex.add(IdSequence.LOCAL_ID_BASE);
+
+        userIdIndex.remove(7);
+        userIdIndex.remove(IdSequence.LOCAL_ID_BASE);
+
+        assertFalse(userIdIndex.contains(7));
+        assertFalse(userIdIndex.contains(IdSequence.LOCAL_ID_BASE));
+    }
+
+    @Test
+    public void serverAndLocalIdsDoNotOverlap() {
+        userIdIndex.add(IdSequence.LOCAL_ID_BASE + 7);
+
+        assertFalse(userIdIndex.contains(7));
+
+        userIdIndex.add(7);
+        userIdIndex.remove(IdSequence.LOCAL_ID_BASE + 7);
+        assertTrue(userIdIndex.contains(7));
+    }
+
+    @Test
+    public void negativeIdsAreIgnored() {
+        userIdIndex.add(-1);
+        userIdIndex.remove(-1);
+
+        assertFalse(userIdIndex.contains(-1));
+    }
+
+    @Test
+    public void nothingIsFoundUntilLoaded() {
+        UserIdIndex loadingIndex = new UserIdIndex();
+        loadingIndex.add(7);
+
+        assertFalse(loadingIndex.isLoaded());
+        assertFalse(loadingIndex.contains(7));
+
+        loadingIndex.markLoaded();
+        assertTrue(loadingIndex.contains(7));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.reqresapi.model.repository;
+
+import com.example.reqresapi.model.database.DbDispatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for how repository database tasks run on the {@link DbDispatcher} lanes and report their outcome,
+ * run on direct executors.
+ */
+public class UserRepositoryLaneTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final DbDispatcher dispatcher = new DbDispatcher(DIRECT, DIRECT);
+
+    @Test
+    public void readResultIsDelivered() {
+        CompletableFuture<Integer> future = UserRepository.supplyOn(dispatcher::executeRead, true, () -> 42,
+                "Error : read failed", DIRECT);
+
+        assertEquals(Integer.valueOf(42), future.join());
+        assertEquals(1, dispatcher.getReadMetrics().completedTasks);
+        assertEquals(0, dispatcher.getWriteMetrics().completedTasks);
+    }
+
+    @Test
+    public void repositoryExceptionIsPassedThrough() {
+        RepositoryException failure = new RepositoryException("Error : the user is being deleted");
+        CompletableFuture<Integer> future = UserRepository.supplyOn(dispatcher::executeWrite, false, () -> {
+            throw failure;
+        }, "Error : write failed", DIRECT);
+
+        assertSame(failure, failureOf(future));
+        assertEquals("Error : the user is being deleted", UserRepository.errorMessage(failureOf(future)));
+    }
+
+    @Test
+    public void otherExceptionIsWrappedWithErrorMessage() {
+        IllegalStateException cause = new IllegalStateException("constraint failed");
+        CompletableFuture<Integer> future = UserRepository.supplyOn(dispatcher::executeWrite, false, () -> {
+            throw cause;
+        }, "Error : write failed", DIRECT);
+
+        Throwable failure = failureOf(future);
+        assertTrue(failure instanceof RepositoryException);
+        assertEquals("Error : write failed", failure.getMessage());
+        assertSame(cause, failure.getCause());
+    }
+
+    @Test
+    public void cancelledQueuedReadIsDropped() {
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> future = UserRepository.supplyOn(queued::add, true, runs::incrementAndGet,
+                "Error : read failed", DIRECT);
+
+        future.cancel(false);
+        queued.get(0).run();
+
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void cancelledQueuedWriteStillRuns() {
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> future = UserRepository.supplyOn(queued::add, false, runs::incrementAndGet,
+                "Error : write failed", DIRECT);
+
+        future.cancel(false);
+        queued.get(0).run();
+
+        assertEquals(1, runs.get());
+        assertTrue(future.isCancelled());
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("The future did not fail");
+    }
+}
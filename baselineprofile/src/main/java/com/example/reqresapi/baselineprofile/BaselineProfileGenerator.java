@@ -0,0 +1,62 @@
+package com.example.reqresapi.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the Baseline Profile of the app.
+ * The profile covers startup and scrolling the user list, so ART compiles MainActivity, the MyAdapter bind path,
+ * Room and the Gson parsing ahead of time.
+ * Run with ./gradlew :app:generateBaselineProfile, the profile is written to app/src/release/generated/baselineProfiles.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final String PACKAGE_NAME = "com.example.reqresapi";
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            scrollUserList(scope.getDevice());
+            return Unit.INSTANCE;
+        });
+    }
+
+    /**
+     * Waits for the user list to appear and scrolls it down and back up.
+     *
+     * @param device The device the app runs on.
+     */
+    private void scrollUserList(UiDevice device) {
+        UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE_NAME, "recyclerview")), TIMEOUT_MS);
+        if (list == null) {
+            return;
+        }
+
+        // Keep gestures away from the system navigation areas
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+}
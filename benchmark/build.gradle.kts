@@ -0,0 +1,47 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+sourceSets {
+    named("jmh") {
+        java {
+            // Compile the plain Java models and the streaming parser of the app together with the benchmarks
+            srcDir("../app/src/main/java")
+            include("com/example/reqresapi/benchmark/**")
+            include("com/example/reqresapi/model/models/**")
+            include("com/example/reqresapi/model/network/UserResponseTypeAdapter.java")
+        }
+    }
+}
+
+dependencies {
+    // Annotations used by the app models
+    jmh("androidx.room:room-common:2.5.0")
+    jmh("androidx.annotation:annotation:1.8.0")
+
+    // Same Gson version as Retrofit's converter-gson 2.9.0
+    jmh("com.google.code.gson:gson:2.8.5")
+
+    // Host-side SQLite driver, runs the same SQL as the Room DAO
+    jmh("org.xerial:sqlite-jdbc:3.45.1.0")
+}
+
+jmh {
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+
+    // Table sizes default to 1k/100k/1M rows, narrow them with e.g. -PtableSizes=1000,100000
+    val tableSizes = providers.gradleProperty("tableSizes")
+    if (tableSizes.isPresent) {
+        benchmarkParameters.put("tableSize", objects.listProperty<String>().value(tableSizes.get().split(",")))
+    }
+}
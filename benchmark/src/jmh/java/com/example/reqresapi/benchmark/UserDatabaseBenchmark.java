@@ -0,0 +1,252 @@
+package com.example.reqresapi.benchmark;
+
+import com.example.reqresapi.model.models.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the repository and DAO hot paths on a host-side SQLite database.
+ * The schema and statements mirror what Room generates for AppDatabase and UserDao, including the users_fts
+ * full-text index and its sync triggers, so the numbers track the cost of the SQL each repository method issues. Old and new variants are measured side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDatabaseBenchmark {
+
+    private static final int PAGE_SIZE = 100; // Users per synced page, half of them already stored
+
+    @Param({"1000", "100000", "1000000"})
+    public int tableSize;
+
+    private File dbFile;
+    private Connection connection;
+    private int nextPageStart;     // First ID of the next synced page
+    private int nextUpdateId;      // ID of the next user to update
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbFile = File.createTempFile("user-database", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS `users` (`id` INTEGER NOT NULL, `email` TEXT, `first_name` TEXT, "
+                    + "`last_name` TEXT, `avatar` TEXT, PRIMARY KEY(`id`))");
+            statement.execute("CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+            statement.execute("CREATE TABLE IF NOT EXISTS `id_sequences` (`name` TEXT NOT NULL, `next_id` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+
+            // Full-text index kept in sync by triggers, as in AppDatabase.MIGRATION_3_4, so every write pays for it
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS `users_fts` USING FTS4("
+                    + "`first_name` TEXT, `last_name` TEXT, `email` TEXT, content=`users`)");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_UPDATE BEFORE UPDATE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_DELETE BEFORE DELETE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_UPDATE AFTER UPDATE ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_INSERT AFTER INSERT ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+        }
+
+        // Fill the table with dense IDs 1..tableSize in a single transaction
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO `users` (`id`,`email`,`first_name`,`last_name`,`avatar`) VALUES (?,?,?,?,?)")) {
+            for (int id = 1; id <= tableSize; id++) {
+                bindUser(insert, user(id));
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() throws SQLException {
+        // Drop users added by the previous iteration so every iteration syncs against the same table
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM `users` WHERE `id` > " + tableSize);
+        }
+        nextPageStart = tableSize - PAGE_SIZE / 2 + 1;
+        nextUpdateId = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        new File(dbFile.getAbsolutePath() + "-wal").delete();
+        new File(dbFile.getAbsolutePath() + "-shm").delete();
+        dbFile.delete();
+    }
+
+    /**
+     * insertUsersToLocalDB: one INSERT OR IGNORE batch inside a single transaction.
+     */
+    @Benchmark
+    public int insertUsersBatched() throws SQLException {
+        List<User> page = nextPage();
+        int newUsers = 0;
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT OR IGNORE INTO `users` (`id`,`email`,`first_name`,`last_name`,`avatar`) VALUES (?,?,?,?,?)")) {
+            for (User user : page) {
+                bindUser(insert, user);
+                newUsers += insert.executeUpdate();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return newUsers;
+    }
+
+    /**
+     * Previous insertUsersToLocalDB: a lookup and an auto-committed insert per user.
+     */
+    @Benchmark
+    public int insertUsersPerRow() throws SQLException {
+        List<User> page = nextPage();
+        int newUsers = 0;
+        try (PreparedStatement select = connection.prepareStatement("SELECT * FROM users WHERE id = ? LIMIT 1");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO `users` (`id`,`email`,`first_name`,`last_name`,`avatar`) VALUES (?,?,?,?,?)")) {
+            for (User user : page) {
+                select.setInt(1, user.getId());
+                boolean exists;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    exists = resultSet.next();
+                }
+                if (!exists) {
+                    bindUser(insert, user);
+                    insert.executeUpdate();
+                    newUsers++;
+                }
+            }
+        }
+        return newUsers;
+    }
+
+    /**
+     * getNextAvailableId: constant-time lookup of the ID sequence, seeded from MAX(id).
+     */
+    @Benchmark
+    public int nextIdFromSequence() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet sequence = statement.executeQuery("SELECT next_id FROM id_sequences WHERE name = 'users'")) {
+            if (sequence.next()) {
+                return sequence.getInt(1);
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet max = statement.executeQuery("SELECT MAX(id) FROM users")) {
+            return max.next() ? max.getInt(1) + 1 : 0;
+        }
+    }
+
+    /**
+     * Previous getNextAvailableId: load every ID and scan for the first gap.
+     */
+    @Benchmark
+    public int nextIdFromScan() throws SQLException {
+        List<Integer> allIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id FROM users ORDER BY id ASC")) {
+            while (resultSet.next()) {
+                allIds.add(resultSet.getInt(1));
+            }
+        }
+        int nextId = 0;
+        for (int id : allIds) {
+            if (id == nextId) {
+                nextId++;
+            } else {
+                break;
+            }
+        }
+        return nextId;
+    }
+
+    /**
+     * fetchAllUsersFromLocalDB: read the whole table into a list of users.
+     */
+    @Benchmark
+    public List<User> fetchAllUsers() throws SQLException {
+        List<User> users = new ArrayList<>(tableSize);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM users")) {
+            while (resultSet.next()) {
+                users.add(new User(resultSet.getInt("id"), resultSet.getString("email"), resultSet.getString("first_name"),
+                        resultSet.getString("last_name"), resultSet.getString("avatar")));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * UserDao.updateUser: update a single row by primary key.
+     */
+    @Benchmark
+    public int updateUser() throws SQLException {
+        int id = nextUpdateId;
+        nextUpdateId = nextUpdateId % tableSize + 1;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE users SET first_name = ?, last_name = ?, email = ?, avatar = ? WHERE id = ?")) {
+            update.setString(1, "Updated");
+            update.setString(2, "User" + id);
+            update.setString(3, "updated" + id + "@reqres.in");
+            update.setString(4, "");
+            update.setInt(5, id);
+            return update.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the next synced page. The first half of each page overlaps stored users, the second half is new.
+     */
+    private List<User> nextPage() {
+        List<User> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(user(nextPageStart + i));
+        }
+        nextPageStart += PAGE_SIZE / 2;
+        return page;
+    }
+
+    private static User user(int id) {
+        return new User(id, "user" + id + "@reqres.in", "First" + id, "Last" + id, "https://reqres.in/img/faces/" + id + "-image.jpg");
+    }
+
+    private static void bindUser(PreparedStatement statement, User user) throws SQLException {
+        statement.setInt(1, user.getId());
+        statement.setString(2, user.getEmail());
+        statement.setString(3, user.getFirst_name());
+        statement.setString(4, user.getLast_name());
+        statement.setString(5, user.getAvatar());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.reqresapi.benchmark;
+
+import com.example.reqresapi.model.models.UserResponse;
+import com.example.reqresapi.model.network.UserResponseTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of UserResponse deserialization, comparing the reflective Gson path with the streaming TypeAdapter
+ * the app registers on Retrofit. Run with -prof gc to compare allocations per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserResponseParsingBenchmark {
+
+    @Param({"6", "100", "1000"})
+    public int perPage;
+
+    private String json;
+    private Gson reflectiveGson;
+    private Gson streamingGson;
+
+    @Setup
+    public void setUp() {
+        reflectiveGson = new Gson();
+        streamingGson = new GsonBuilder()
+                .registerTypeAdapter(UserResponse.class, new UserResponseTypeAdapter())
+                .create();
+
+        StringBuilder builder = new StringBuilder("{\"page\":1,\"per_page\":").append(perPage)
+                .append(",\"total\":").append(perPage).append(",\"total_pages\":1,\"data\":[");
+        for (int i = 1; i <= perPage; i++) {
+            if (i > 1) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i)
+                    .append(",\"email\":\"user").append(i).append("@reqres.in\"")
+                    .append(",\"first_name\":\"First").append(i).append('"')
+                    .append(",\"last_name\":\"Last").append(i).append('"')
+                    .append(",\"avatar\":\"https://reqres.in/img/faces/").append(i).append("-image.jpg\"}");
+        }
+        json = builder.append("],\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"Thanks\"}}").toString();
+    }
+
+    @Benchmark
+    public UserResponse parseReflective() {
+        return reflectiveGson.fromJson(json, UserResponse.class);
+    }
+
+    @Benchmark
+    public UserResponse parseStreaming() {
+        return streamingGson.fromJson(json, UserResponse.class);
+    }
+}
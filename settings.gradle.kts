@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "ReqResAPI"
 include(":app")
+include(":benchmark")
+include(":baselineprofile")
+include(":macrobenchmark")
  
\ No newline at end of file